@@ -0,0 +1,188 @@
+package br.com.api.configs.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import br.com.api.models.Usuario;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Usuários consultados pelo login na autenticação, com limite de tamanho e
+ * validade. Logins inexistentes também ficam guardados, por um tempo menor,
+ * para que tentativas repetidas não cheguem ao banco. As entradas são
+ * invalidadas após o commit de qualquer alteração do usuário.
+ */
+@Component
+public class CacheUsuarioAutenticado implements MeterBinder {
+
+	private final int tamanhoMaximo;
+	private final long validade;
+	private final long validadeNegativa;
+
+	private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+	// Incrementada a cada invalidação, descarta as consultas ao banco que começaram antes dela
+	private final AtomicLong geracao = new AtomicLong();
+
+	private final LongAdder acertos = new LongAdder();
+	private final LongAdder acertosNegativos = new LongAdder();
+	private final LongAdder falhas = new LongAdder();
+	private final LongAdder despejos = new LongAdder();
+
+	public CacheUsuarioAutenticado(@Value("${security.usuario.cache.tamanho-maximo:10000}") int tamanhoMaximo,
+			@Value("${security.usuario.cache.validade-segundos:300}") long segundosValidade,
+			@Value("${security.usuario.cache.validade-negativa-segundos:30}") long segundosValidadeNegativa) {
+		this.tamanhoMaximo = tamanhoMaximo;
+		this.validade = TimeUnit.SECONDS.toMillis(segundosValidade);
+		this.validadeNegativa = TimeUnit.SECONDS.toMillis(segundosValidadeNegativa);
+	}
+
+	// Null quando o login não está no cache, consulte isInexistente para o caso negativo
+	public Entrada consultar(String login) {
+		Entrada entrada = this.entradas.get(login);
+
+		if (entrada == null) {
+			this.falhas.increment();
+			return null;
+		}
+
+		if (entrada.isExpirada(System.currentTimeMillis())) {
+			if (this.entradas.remove(login, entrada))
+				this.despejos.increment();
+			this.falhas.increment();
+			return null;
+		}
+
+		if (entrada.isInexistente())
+			this.acertosNegativos.increment();
+		else
+			this.acertos.increment();
+
+		return entrada;
+	}
+
+	// Obtida antes de consultar o banco e repassada ao armazenar
+	public long getGeracao() {
+		return this.geracao.get();
+	}
+
+	public void armazenar(String login, Usuario usuario, long geracao) {
+		this.armazenar(login, usuario, this.validade, geracao);
+	}
+
+	public void armazenarInexistente(String login, long geracao) {
+		this.armazenar(login, null, this.validadeNegativa, geracao);
+	}
+
+	public void invalidar(String login) {
+		this.geracao.incrementAndGet();
+		if (login != null) {
+			this.entradas.remove(login);
+		}
+	}
+
+	public void limpar() {
+		this.geracao.incrementAndGet();
+		this.entradas.clear();
+	}
+
+	public int getTamanho() {
+		return this.entradas.size();
+	}
+
+	public double getTaxaAcerto() {
+		long acertosTotais = this.acertos.sum() + this.acertosNegativos.sum();
+		long consultas = acertosTotais + this.falhas.sum();
+		return consultas == 0 ? 0 : (double) acertosTotais / consultas;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("usuario.cache.consultas", this.acertos, LongAdder::sum).tag("resultado", "acerto")
+				.register(registry);
+		FunctionCounter.builder("usuario.cache.consultas", this.acertosNegativos, LongAdder::sum)
+				.tag("resultado", "inexistente").register(registry);
+		FunctionCounter.builder("usuario.cache.consultas", this.falhas, LongAdder::sum).tag("resultado", "falha")
+				.register(registry);
+		FunctionCounter.builder("usuario.cache.despejos", this.despejos, LongAdder::sum).register(registry);
+		Gauge.builder("usuario.cache.tamanho", this.entradas, Map::size).register(registry);
+		Gauge.builder("usuario.cache.taxa.acerto", this, CacheUsuarioAutenticado::getTaxaAcerto).register(registry);
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private void armazenar(String login, Usuario usuario, long validade, long geracao) {
+		if (this.tamanhoMaximo <= 0 || validade <= 0 || login == null) {
+			return;
+		}
+
+		if (this.entradas.size() >= this.tamanhoMaximo) {
+			this.liberarEspaco();
+		}
+
+		Entrada entrada = new Entrada(usuario, System.currentTimeMillis() + validade);
+		this.entradas.put(login, entrada);
+
+		// Uma invalidação durante a consulta ao banco pode ter sido perdida
+		if (this.geracao.get() != geracao) {
+			this.entradas.remove(login, entrada);
+		}
+	}
+
+	// Primeiro descarta os expirados, se ainda estiver cheio libera 10% das entradas
+	private void liberarEspaco() {
+		long agora = System.currentTimeMillis();
+		Iterator<Entrada> iterator = this.entradas.values().iterator();
+
+		while (iterator.hasNext()) {
+			if (iterator.next().isExpirada(agora)) {
+				iterator.remove();
+				this.despejos.increment();
+			}
+		}
+
+		int limite = this.tamanhoMaximo - Math.max(1, this.tamanhoMaximo / 10);
+		iterator = this.entradas.values().iterator();
+
+		while (this.entradas.size() > limite && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			this.despejos.increment();
+		}
+	}
+
+	public static final class Entrada {
+
+		private final Usuario usuario;
+		private final long expiraEm;
+
+		private Entrada(Usuario usuario, long expiraEm) {
+			this.usuario = usuario;
+			this.expiraEm = expiraEm;
+		}
+
+		public Usuario getUsuario() {
+			return this.usuario;
+		}
+
+		public boolean isInexistente() {
+			return this.usuario == null;
+		}
+
+		private boolean isExpirada(long agora) {
+			return agora >= this.expiraEm;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package br.com.api.configs.security;
+
+import static br.com.api.models.Perfil.PERFIL_ADMIN;
+import static br.com.api.models.Perfil.PERFIL_USUARIO;
+import static br.com.api.models.Perfil.PERMISSAO_USUARIOS_EDITAR;
+import static br.com.api.models.Perfil.PERMISSAO_USUARIOS_EXCLUIR;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import br.com.api.configs.security.jwt.CacheTokenVerificado;
+import br.com.api.models.Perfil;
+import br.com.api.repositories.PerfilRepository;
+
+/**
+ * Hierarquia dos perfis e suas permissões. A cada alteração do catálogo o
+ * fechamento transitivo das heranças é calculado uma única vez e guardado como
+ * um conjunto de bits por combinação de perfis, assim cada verificação de
+ * autorização é só um teste de bit. Também indexa pelo nome os perfis gravados,
+ * para que os cadastros e a listagem não consultem o banco.
+ */
+@Component
+public class CatalogoPermissoes {
+
+	private static Logger logger = Logger.getLogger(CatalogoPermissoes.class);
+
+	// As combinações de perfis existentes são poucas, o limite só protege de nomes arbitrários
+	private static final int LIMITE_COMBINACOES = 1024;
+
+	// Valem mesmo sem cadastro no banco, as heranças e permissões cadastradas são somadas a estas
+	private static final Map<String, List<String>> HERANCAS_PADRAO = Collections.singletonMap(PERFIL_ADMIN,
+			Arrays.asList(PERFIL_USUARIO));
+	private static final Map<String, List<String>> PERMISSOES_PADRAO = Collections.singletonMap(PERFIL_ADMIN,
+			Arrays.asList(PERMISSAO_USUARIOS_EDITAR, PERMISSAO_USUARIOS_EXCLUIR));
+
+	private final PerfilRepository repository;
+
+	private final CacheTokenVerificado cacheToken;
+
+	private volatile Catalogo catalogo;
+
+	public CatalogoPermissoes(PerfilRepository repository, CacheTokenVerificado cacheToken) {
+		this.repository = repository;
+		this.cacheToken = cacheToken;
+		this.catalogo = new Catalogo(Collections.emptyList());
+	}
+
+	@PostConstruct
+	public void carregar() {
+		this.aplicar(this.repository.findDistinctByAtivo(true));
+	}
+
+	// Alterações feitas direto no banco também chegam, sem reiniciar a aplicação
+	@Scheduled(fixedDelayString = "${security.perfis.intervalo-recarga:300000}", initialDelayString = "${security.perfis.intervalo-recarga:300000}")
+	public void recarregar() {
+		this.carregar();
+	}
+
+	public Permissoes getPermissoes(Collection<String> nomesPerfis) {
+		return this.catalogo.getPermissoes(nomesPerfis);
+	}
+
+	public boolean isPerfilConhecido(String nomePerfil) {
+		return nomePerfil != null && this.catalogo.alcance.containsKey(nomePerfil);
+	}
+
+	// Null quando o perfil ainda não foi gravado
+	public Long getIdPerfil(String nomePerfil) {
+		return nomePerfil == null ? null : this.catalogo.idsPerfis.get(nomePerfil);
+	}
+
+	// Perfis ativos gravados, em ordem alfabética; a mesma lista imutável até o catálogo mudar
+	public List<String> getNomesPerfis() {
+		return this.catalogo.nomesPerfis;
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	// Retorna false quando o catálogo não mudou, mantendo as permissões e a listagem já montadas
+	synchronized boolean aplicar(List<Perfil> perfis) {
+		Catalogo novoCatalogo = new Catalogo(perfis);
+		boolean alcanceAlterado = !novoCatalogo.alcance.equals(this.catalogo.alcance);
+		if (!alcanceAlterado && novoCatalogo.idsPerfis.equals(this.catalogo.idsPerfis)) {
+			return false;
+		}
+
+		this.catalogo = novoCatalogo;
+		if (alcanceAlterado) {
+			this.cacheToken.limpar(); // As autenticações em cache guardam as permissões do catálogo anterior
+		}
+		logger.info("Catalogo de permissoes carregado com " + novoCatalogo.alcance.size() + " perfis");
+		return true;
+	}
+
+	private static final class Catalogo {
+
+		// Perfil para tudo que ele alcança: ele mesmo, os perfis herdados e as permissões de todos eles
+		private final Map<String, Set<String>> alcance;
+		private final Map<String, Integer> indice = new HashMap<>();
+		private final Map<String, long[]> bitsPerfil = new HashMap<>();
+		private final List<GrantedAuthority> autoridades = new ArrayList<>();
+
+		private final Map<List<String>, Permissoes> combinacoes = new ConcurrentHashMap<>();
+
+		private final Map<String, Long> idsPerfis;
+		private final List<String> nomesPerfis;
+
+		private Catalogo(List<Perfil> perfis) {
+			Map<String, Set<String>> herancas = new HashMap<>();
+			Map<String, Set<String>> permissoes = new HashMap<>();
+			juntar(herancas, HERANCAS_PADRAO);
+			juntar(permissoes, PERMISSOES_PADRAO);
+			herancas.computeIfAbsent(PERFIL_USUARIO, p -> new HashSet<>());
+
+			Map<String, Long> ids = new TreeMap<>();
+			for (Perfil perfil : perfis) {
+				if (perfil.getId() != null) {
+					ids.put(perfil.getNome(), perfil.getId());
+				}
+
+				Set<String> herdados = herancas.computeIfAbsent(perfil.getNome(), p -> new HashSet<>());
+				if (perfil.getPerfisHerdados() != null) {
+					for (Perfil herdado : perfil.getPerfisHerdados()) {
+						herdados.add(herdado.getNome());
+						herancas.computeIfAbsent(herdado.getNome(), p -> new HashSet<>());
+					}
+				}
+				if (perfil.getPermissoes() != null) {
+					permissoes.computeIfAbsent(perfil.getNome(), p -> new HashSet<>()).addAll(perfil.getPermissoes());
+				}
+			}
+
+			Map<String, Set<String>> alcanceCalculado = new TreeMap<>();
+			for (String perfil : herancas.keySet()) {
+				alcancar(perfil, herancas, permissoes, alcanceCalculado, new HashSet<>());
+			}
+			this.alcance = Collections.unmodifiableMap(alcanceCalculado);
+			this.idsPerfis = Collections.unmodifiableMap(ids);
+			this.nomesPerfis = Collections.unmodifiableList(new ArrayList<>(ids.keySet()));
+
+			// Um bit para cada perfil e cada permissão
+			Set<String> todas = new TreeSet<>();
+			this.alcance.values().forEach(todas::addAll);
+			for (String autoridade : todas) {
+				this.indice.put(autoridade, this.autoridades.size());
+				this.autoridades.add(new SimpleGrantedAuthority(autoridade));
+			}
+
+			for (Map.Entry<String, Set<String>> entrada : this.alcance.entrySet()) {
+				long[] bits = new long[(todas.size() + 63) >>> 6];
+				for (String autoridade : entrada.getValue()) {
+					int posicao = this.indice.get(autoridade);
+					bits[posicao >>> 6] |= 1L << posicao;
+				}
+				this.bitsPerfil.put(entrada.getKey(), bits);
+			}
+		}
+
+		private Permissoes getPermissoes(Collection<String> nomesPerfis) {
+			List<String> chave = nomesPerfis == null ? Collections.emptyList()
+					: new ArrayList<>(new TreeSet<>(nomesPerfis));
+			Permissoes permissoes = this.combinacoes.get(chave);
+			if (permissoes != null) {
+				return permissoes;
+			}
+
+			permissoes = this.combinar(chave);
+			if (this.combinacoes.size() < LIMITE_COMBINACOES) {
+				Permissoes existente = this.combinacoes.putIfAbsent(Collections.unmodifiableList(chave), permissoes);
+				return existente == null ? permissoes : existente;
+			}
+			return permissoes;
+		}
+
+		// Perfis fora do catálogo não concedem nada
+		private Permissoes combinar(List<String> nomesPerfis) {
+			long[] bits = new long[(this.autoridades.size() + 63) >>> 6];
+			for (String nome : nomesPerfis) {
+				long[] bitsPerfil = this.bitsPerfil.get(nome);
+				if (bitsPerfil != null) {
+					for (int i = 0; i < bits.length; i++) {
+						bits[i] |= bitsPerfil[i];
+					}
+				}
+			}
+
+			List<GrantedAuthority> concedidas = new ArrayList<>();
+			for (int posicao = 0; posicao < this.autoridades.size(); posicao++) {
+				if ((bits[posicao >>> 6] & (1L << posicao)) != 0) {
+					concedidas.add(this.autoridades.get(posicao));
+				}
+			}
+
+			return new Permissoes(this.indice, bits, Collections.unmodifiableList(concedidas));
+		}
+
+		private static void juntar(Map<String, Set<String>> destino, Map<String, List<String>> origem) {
+			for (Map.Entry<String, List<String>> entrada : origem.entrySet()) {
+				destino.computeIfAbsent(entrada.getKey(), p -> new HashSet<>()).addAll(entrada.getValue());
+			}
+		}
+
+		// Busca em profundidade com memória, um ciclo na hierarquia só é ignorado
+		private static Set<String> alcancar(String perfil, Map<String, Set<String>> herancas,
+				Map<String, Set<String>> permissoes, Map<String, Set<String>> alcance, Set<String> visitando) {
+			Set<String> calculado = alcance.get(perfil);
+			if (calculado != null) {
+				return calculado;
+			}
+			if (!visitando.add(perfil)) {
+				return Collections.emptySet();
+			}
+
+			Set<String> resultado = new TreeSet<>();
+			resultado.add(perfil);
+			resultado.addAll(permissoes.getOrDefault(perfil, Collections.emptySet()));
+			for (String herdado : herancas.getOrDefault(perfil, Collections.emptySet())) {
+				resultado.addAll(alcancar(herdado, herancas, permissoes, alcance, visitando));
+			}
+
+			visitando.remove(perfil);
+			alcance.put(perfil, Collections.unmodifiableSet(resultado));
+			return resultado;
+		}
+	}
+
+	/**
+	 * Autoridades concedidas a uma combinação de perfis, compartilhadas por todos
+	 * os usuários com a mesma combinação.
+	 */
+	public static final class Permissoes implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Map<String, Integer> indice;
+		private final long[] bits;
+		private final List<GrantedAuthority> autoridades;
+
+		private Permissoes(Map<String, Integer> indice, long[] bits, List<GrantedAuthority> autoridades) {
+			this.indice = indice;
+			this.bits = bits;
+			this.autoridades = autoridades;
+		}
+
+		public boolean possui(String autoridade) {
+			Integer posicao = autoridade == null ? null : this.indice.get(autoridade);
+			return posicao != null && (this.bits[posicao >>> 6] & (1L << posicao)) != 0;
+		}
+
+		// Perfis, inclusive os herdados, e permissões, no formato esperado pelo Spring Security
+		public List<GrantedAuthority> getAutoridades() {
+			return this.autoridades;
+		}
+	}
+}
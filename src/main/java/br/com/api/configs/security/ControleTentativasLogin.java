@@ -0,0 +1,201 @@
+package br.com.api.configs.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.exceptions.TentativasExcedidasException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Limita as tentativas de login por login e por IP com baldes de fichas e
+ * bloqueia temporariamente o login após sucessivas falhas. Tudo é decidido em
+ * memória, antes de qualquer consulta ao banco ou cálculo de hash.
+ */
+@Component
+public class ControleTentativasLogin implements MeterBinder {
+
+	private static final long UM_MINUTO = TimeUnit.MINUTES.toMillis(1);
+
+	private final int limitePorLogin;
+	private final int limitePorIp;
+	private final int falhasParaBloqueio;
+	private final long tempoBloqueio;
+
+	private final Map<String, Balde> baldesLogin = new ConcurrentHashMap<>();
+	private final Map<String, Balde> baldesIp = new ConcurrentHashMap<>();
+	private final Map<String, Falhas> falhas = new ConcurrentHashMap<>();
+
+	private final LongAdder rejeicoesLogin = new LongAdder();
+	private final LongAdder rejeicoesIp = new LongAdder();
+	private final LongAdder rejeicoesBloqueio = new LongAdder();
+
+	public ControleTentativasLogin(@Value("${security.login.limite.por-login:10}") int limitePorLogin,
+			@Value("${security.login.limite.por-ip:30}") int limitePorIp,
+			@Value("${security.login.bloqueio.tentativas:5}") int falhasParaBloqueio,
+			@Value("${security.login.bloqueio.minutos:15}") long minutosBloqueio) {
+		this.limitePorLogin = limitePorLogin;
+		this.limitePorIp = limitePorIp;
+		this.falhasParaBloqueio = falhasParaBloqueio;
+		this.tempoBloqueio = TimeUnit.MINUTES.toMillis(minutosBloqueio);
+	}
+
+	// Lança TentativasExcedidasException se o login estiver bloqueado ou algum dos limites estourar
+	public void verificarTentativa(String login, String ip) {
+		long agora = System.currentTimeMillis();
+		String chaveLogin = login == null ? "" : login;
+
+		Falhas falhasLogin = this.falhas.get(chaveLogin);
+		if (falhasLogin != null && falhasLogin.bloqueadoAte > agora) {
+			this.rejeicoesBloqueio.increment();
+			throw new TentativasExcedidasException(ExceptionsConstantes.USUARIO_BLOQUEADO,
+					segundosAte(falhasLogin.bloqueadoAte, agora));
+		}
+
+		if (ip != null && !this.consumir(this.baldesIp, ip, this.limitePorIp, agora)) {
+			this.rejeicoesIp.increment();
+			throw new TentativasExcedidasException(ExceptionsConstantes.TENTATIVAS_LOGIN_EXCEDIDAS,
+					segundosAte(agora + UM_MINUTO / Math.max(1, this.limitePorIp), agora));
+		}
+
+		if (!this.consumir(this.baldesLogin, chaveLogin, this.limitePorLogin, agora)) {
+			this.rejeicoesLogin.increment();
+			throw new TentativasExcedidasException(ExceptionsConstantes.TENTATIVAS_LOGIN_EXCEDIDAS,
+					segundosAte(agora + UM_MINUTO / Math.max(1, this.limitePorLogin), agora));
+		}
+	}
+
+	public void registrarFalha(String login) {
+		if (login == null || this.falhasParaBloqueio <= 0) {
+			return;
+		}
+
+		long agora = System.currentTimeMillis();
+		this.falhas.compute(login, (chave, atual) -> {
+			Falhas registro = atual == null || atual.isExpirado(agora) ? new Falhas() : atual;
+			registro.quantidade++;
+			registro.ultimaFalha = agora;
+
+			if (registro.quantidade >= this.falhasParaBloqueio) {
+				registro.bloqueadoAte = agora + this.tempoBloqueio;
+				registro.quantidade = 0;
+			}
+			return registro;
+		});
+	}
+
+	public void registrarSucesso(String login) {
+		if (login != null) {
+			this.falhas.remove(login);
+		}
+	}
+
+	// Remove os baldes cheios e as falhas antigas, mantendo em memória só as chaves ativas
+	@Scheduled(fixedDelayString = "${security.login.limite.intervalo-limpeza:60000}")
+	public void removerInativos() {
+		long agora = System.currentTimeMillis();
+		this.baldesLogin.values().removeIf(balde -> balde.isCheio(this.limitePorLogin, agora));
+		this.baldesIp.values().removeIf(balde -> balde.isCheio(this.limitePorIp, agora));
+		this.falhas.values().removeIf(registro -> registro.isExpirado(agora));
+	}
+
+	public long getRejeicoes() {
+		return this.rejeicoesLogin.sum() + this.rejeicoesIp.sum() + this.rejeicoesBloqueio.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("login.tentativas.rejeicoes", this.rejeicoesLogin, LongAdder::sum)
+				.tag("motivo", "login").register(registry);
+		FunctionCounter.builder("login.tentativas.rejeicoes", this.rejeicoesIp, LongAdder::sum).tag("motivo", "ip")
+				.register(registry);
+		FunctionCounter.builder("login.tentativas.rejeicoes", this.rejeicoesBloqueio, LongAdder::sum)
+				.tag("motivo", "bloqueio").register(registry);
+		Gauge.builder("login.tentativas.chaves", this, c -> c.baldesLogin.size() + c.baldesIp.size())
+				.register(registry);
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private boolean consumir(Map<String, Balde> baldes, String chave, int limite, long agora) {
+		if (limite <= 0) {
+			return true;
+		}
+
+		Balde balde = baldes.computeIfAbsent(chave, c -> new Balde(limite, agora));
+		return balde.consumir(limite, agora);
+	}
+
+	private static long segundosAte(long instante, long agora) {
+		return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(instante - agora + 999));
+	}
+
+	// Balde com capacidade igual ao limite, recarregado continuamente ao longo de um minuto
+	private static final class Balde {
+
+		private final AtomicReference<Estado> estado;
+
+		private Balde(int limite, long agora) {
+			this.estado = new AtomicReference<>(new Estado(limite, agora));
+		}
+
+		private boolean consumir(int limite, long agora) {
+			while (true) {
+				Estado atual = this.estado.get();
+				double fichas = atual.recarregar(limite, agora);
+
+				if (fichas < 1) {
+					return false;
+				}
+
+				if (this.estado.compareAndSet(atual, new Estado(fichas - 1, Math.max(agora, atual.atualizadoEm)))) {
+					return true;
+				}
+			}
+		}
+
+		private boolean isCheio(int limite, long agora) {
+			return this.estado.get().recarregar(limite, agora) >= limite;
+		}
+	}
+
+	private static final class Estado {
+
+		private final double fichas;
+		private final long atualizadoEm;
+
+		private Estado(double fichas, long atualizadoEm) {
+			this.fichas = fichas;
+			this.atualizadoEm = atualizadoEm;
+		}
+
+		private double recarregar(int limite, long agora) {
+			long decorrido = Math.max(0, agora - this.atualizadoEm);
+			return Math.min(limite, this.fichas + (double) decorrido * limite / UM_MINUTO);
+		}
+	}
+
+	// Alterado apenas dentro do compute do mapa
+	private final class Falhas {
+
+		private int quantidade;
+		private long ultimaFalha;
+		private volatile long bloqueadoAte;
+
+		private boolean isExpirado(long agora) {
+			return this.bloqueadoAte <= agora && agora - this.ultimaFalha > tempoBloqueio;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package br.com.api.configs.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.exceptions.SobrecargaException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Pool dedicado à verificação de senha do login, dimensionado pela quantidade de
+ * CPUs e com fila limitada. Quando a fila enche o login é recusado na hora, em
+ * vez de prender as threads do Tomcat no BCrypt.
+ */
+@Component
+public class ExecutorVerificacaoSenha implements MeterBinder {
+
+	private final ThreadPoolExecutor executor;
+
+	private final long segundosRetentativa;
+
+	private final LongAdder rejeicoes = new LongAdder();
+
+	private volatile Timer tempoVerificacao;
+
+	public ExecutorVerificacaoSenha(@Value("${security.login.threads:0}") int threads,
+			@Value("${security.login.tamanho-fila:64}") int tamanhoFila,
+			@Value("${security.login.retry-after:1}") long segundosRetentativa) {
+		int quantidadeThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+		this.segundosRetentativa = segundosRetentativa;
+		this.executor = new ThreadPoolExecutor(quantidadeThreads, quantidadeThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(tamanhoFila), new FabricaThreads(), new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	public <T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+		try {
+			return CompletableFuture.supplyAsync(() -> this.medir(tarefa), this.executor);
+		} catch (RejectedExecutionException e) {
+			this.rejeicoes.increment();
+			throw new SobrecargaException(ExceptionsConstantes.LOGIN_SOBRECARREGADO, this.segundosRetentativa);
+		}
+	}
+
+	public int getTamanhoFila() {
+		return this.executor.getQueue().size();
+	}
+
+	public long getRejeicoes() {
+		return this.rejeicoes.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("login.verificacao.fila", this.executor, e -> e.getQueue().size()).register(registry);
+		Gauge.builder("login.verificacao.ativas", this.executor, ThreadPoolExecutor::getActiveCount)
+				.register(registry);
+		FunctionCounter.builder("login.verificacao.rejeicoes", this.rejeicoes, LongAdder::sum).register(registry);
+		this.tempoVerificacao = Timer.builder("login.verificacao.tempo").publishPercentileHistogram()
+				.register(registry);
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		this.executor.shutdown();
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private <T> T medir(Supplier<T> tarefa) {
+		Timer timer = this.tempoVerificacao;
+		if (timer == null) {
+			return tarefa.get();
+		}
+
+		long inicio = System.nanoTime();
+		try {
+			return tarefa.get();
+		} finally {
+			timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static final class FabricaThreads implements ThreadFactory {
+
+		private final AtomicInteger contador = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable tarefa) {
+			Thread thread = new Thread(tarefa, "verificacao-senha-" + this.contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
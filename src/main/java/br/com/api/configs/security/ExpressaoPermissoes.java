@@ -0,0 +1,38 @@
+package br.com.api.configs.security;
+
+import org.springframework.security.access.expression.SecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.expression.WebSecurityExpressionRoot;
+
+/**
+ * Disponibiliza possui('perfil ou permissao') nas regras de acesso do
+ * SecurityConfig, respondido pelos bits do UsuarioLogado em vez de percorrer as
+ * autoridades da autenticação.
+ */
+public class ExpressaoPermissoes extends DefaultWebSecurityExpressionHandler {
+
+	@Override
+	protected SecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+			FilterInvocation fi) {
+		RaizPermissoes raiz = new RaizPermissoes(authentication, fi);
+		raiz.setPermissionEvaluator(getPermissionEvaluator());
+		raiz.setTrustResolver(new AuthenticationTrustResolverImpl());
+		raiz.setRoleHierarchy(getRoleHierarchy());
+		return raiz;
+	}
+
+	public static class RaizPermissoes extends WebSecurityExpressionRoot {
+
+		public RaizPermissoes(Authentication authentication, FilterInvocation fi) {
+			super(authentication, fi);
+		}
+
+		public boolean possui(String autoridade) {
+			Object principal = this.getPrincipal();
+			return principal instanceof UsuarioLogado && ((UsuarioLogado) principal).possui(autoridade);
+		}
+	}
+}
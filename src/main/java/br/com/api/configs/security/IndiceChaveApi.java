@@ -0,0 +1,149 @@
+package br.com.api.configs.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import br.com.api.repositories.ChaveApiRepository;
+
+/**
+ * Chaves de API ativas indexadas pelo SHA-256, recarregadas do banco
+ * periodicamente e após cada alteração. As chaves são geradas com 256 bits
+ * aleatórios, então um único SHA-256 basta, sem o custo do BCrypt: a
+ * autenticação é um hash e uma consulta no mapa.
+ */
+@Component
+public class IndiceChaveApi {
+
+	private static Logger logger = Logger.getLogger(IndiceChaveApi.class);
+
+	public static final String CABECALHO = "X-Api-Key";
+
+	private static final String PREFIXO = "ak_";
+	private static final int TAMANHO_PREFIXO_VISIVEL = PREFIXO.length() + 8;
+
+	private static final SecureRandom GERADOR = new SecureRandom();
+
+	private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final ChaveApiRepository repository;
+
+	private final CatalogoPermissoes catalogoPermissoes;
+
+	private volatile Map<String, Entrada> chaves = Collections.emptyMap();
+
+	private volatile Set<Long> titulares = Collections.emptySet();
+
+	public IndiceChaveApi(ChaveApiRepository repository, CatalogoPermissoes catalogoPermissoes) {
+		this.repository = repository;
+		this.catalogoPermissoes = catalogoPermissoes;
+	}
+
+	@PostConstruct
+	public void carregar() {
+		Map<String, Entrada> novasChaves = new HashMap<>();
+		Set<Long> novosTitulares = new HashSet<>();
+
+		for (Object[] linha : this.repository.findChavesValidas(LocalDateTime.now())) {
+			LocalDateTime dataExpiracao = (LocalDateTime) linha[1];
+			long expiraEm = dataExpiracao == null ? Long.MAX_VALUE
+					: dataExpiracao.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+			Entrada entrada = novasChaves.computeIfAbsent((String) linha[0],
+					hash -> new Entrada((Long) linha[2], (String) linha[3], expiraEm));
+			if (linha[4] != null) {
+				entrada.perfis.add((String) linha[4]);
+			}
+			novosTitulares.add(entrada.idUsuario);
+		}
+
+		this.chaves = novasChaves;
+		this.titulares = novosTitulares;
+		logger.info("Indice de chaves de API carregado com " + novasChaves.size() + " chaves");
+	}
+
+	// Revogações e chaves emitidas em outra instância também chegam, sem reiniciar a aplicação
+	@Scheduled(fixedDelayString = "${security.api-key.intervalo-recarga:60000}", initialDelayString = "${security.api-key.intervalo-recarga:60000}")
+	public void recarregar() {
+		this.carregar();
+	}
+
+	// Null para chave desconhecida, revogada ou expirada
+	public Authentication autenticar(String chave) {
+		if (chave == null || !chave.startsWith(PREFIXO)) {
+			return null;
+		}
+
+		Entrada entrada = this.chaves.get(gerarHash(chave));
+		if (entrada == null || System.currentTimeMillis() >= entrada.expiraEm) {
+			return null;
+		}
+
+		UsuarioLogado usuarioLogado = UsuarioLogado.de(entrada.idUsuario, entrada.login,
+				this.catalogoPermissoes.getPermissoes(entrada.perfis));
+		return new UsernamePasswordAuthenticationToken(usuarioLogado, "", usuarioLogado.getAutoridades());
+	}
+
+	// Alterações de usuários sem chaves não precisam recarregar o índice
+	public boolean isTitular(Long idUsuario) {
+		return idUsuario != null && this.titulares.contains(idUsuario);
+	}
+
+	public static String gerarChave() {
+		byte[] bytes = new byte[32];
+		GERADOR.nextBytes(bytes);
+		return PREFIXO + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	public static String getPrefixoVisivel(String chave) {
+		return chave.substring(0, TAMANHO_PREFIXO_VISIVEL);
+	}
+
+	public static String gerarHash(String chave) {
+		byte[] digest = SHA256.get().digest(chave.getBytes(StandardCharsets.UTF_8));
+		StringBuilder hash = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hash.toString();
+	}
+
+	private static final class Entrada {
+
+		private final Long idUsuario;
+		private final String login;
+		private final long expiraEm;
+		private final List<String> perfis = new ArrayList<>(2);
+
+		private Entrada(Long idUsuario, String login, long expiraEm) {
+			this.idUsuario = idUsuario;
+			this.login = login;
+			this.expiraEm = expiraEm;
+		}
+	}
+}
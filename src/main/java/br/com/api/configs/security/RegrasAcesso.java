@@ -0,0 +1,195 @@
+package br.com.api.configs.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Regras de acesso por rota, montadas uma vez na inicialização em uma árvore de
+ * prefixos por segmento do caminho. A consulta percorre o caminho da requisição
+ * sem alocar e devolve a regra mais específica: caminho exato antes de "/**",
+ * prefixo mais longo antes do mais curto e método informado antes de qualquer
+ * método. Rotas sem regra ficam liberadas, como no authorizeRequests sem anyRequest.
+ */
+public class RegrasAcesso {
+
+	private static final String CURINGA = "/**";
+
+	private final No raiz = new No("");
+
+	private final List<Regra> regras = new ArrayList<>();
+
+	public RegrasAcesso liberar(String... padroes) {
+		return this.adicionar(null, null, padroes);
+	}
+
+	public RegrasAcesso liberar(HttpMethod metodo, String... padroes) {
+		return this.adicionar(metodo, null, padroes);
+	}
+
+	public RegrasAcesso exigir(String autoridade, String... padroes) {
+		return this.adicionar(null, autoridade, padroes);
+	}
+
+	// Na ordem em que foram declaradas, para montar o authorizeRequests do filtro completo
+	public List<Regra> getRegras() {
+		return Collections.unmodifiableList(this.regras);
+	}
+
+	// Null quando nenhuma regra se aplica
+	public Regra consultar(HttpServletRequest request) {
+		String caminho = request.getPathInfo() == null ? request.getServletPath()
+				: request.getServletPath() + request.getPathInfo();
+		return this.consultar(request.getMethod(), caminho);
+	}
+
+	public Regra consultar(String metodo, String caminho) {
+		No no = this.raiz;
+		Regra encontrada = no.escolher(no.curingas, metodo, null);
+		int inicio = caminho.startsWith("/") ? 1 : 0;
+
+		// O Spring MVC leva "/rota/" ao mesmo handler de "/rota", então a barra final não pode escapar da regra exata
+		int tamanho = caminho.length();
+		if (tamanho > inicio && caminho.charAt(tamanho - 1) == '/') {
+			tamanho--;
+		}
+
+		if (inicio >= tamanho) {
+			return no.escolher(no.exatas, metodo, encontrada);
+		}
+
+		while (true) {
+			int fim = caminho.indexOf('/', inicio);
+			boolean ultimo = fim < 0 || fim >= tamanho;
+			if (ultimo) {
+				fim = tamanho;
+			}
+
+			no = no.filho(caminho, inicio, fim);
+			if (no == null) {
+				return encontrada;
+			}
+
+			// O "/**" também vale para o próprio prefixo, mas o caminho exato tem prioridade
+			encontrada = no.escolher(no.curingas, metodo, encontrada);
+			if (ultimo) {
+				return no.escolher(no.exatas, metodo, encontrada);
+			}
+			inicio = fim + 1;
+		}
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private RegrasAcesso adicionar(HttpMethod metodo, String autoridade, String... padroes) {
+		for (String padrao : padroes) {
+			Regra regra = new Regra(metodo == null ? null : metodo.name(), padrao, autoridade);
+			boolean curinga = padrao.endsWith(CURINGA);
+			String caminho = curinga ? padrao.substring(0, padrao.length() - CURINGA.length()) : padrao;
+
+			if (!padrao.startsWith("/") || caminho.contains("*")) {
+				throw new IllegalArgumentException("Padrao de rota nao suportado: " + padrao);
+			}
+
+			No no = this.raiz;
+			if (caminho.length() > 1) {
+				for (String segmento : caminho.substring(1).split("/", -1)) {
+					no = no.filhoOuNovo(segmento);
+				}
+			}
+
+			if (curinga)
+				no.curingas.add(regra);
+			else
+				no.exatas.add(regra);
+
+			this.regras.add(regra);
+		}
+		return this;
+	}
+
+	private static final class No {
+
+		private final String segmento;
+		private No[] filhos = new No[0];
+		private final List<Regra> exatas = new ArrayList<>(1);
+		private final List<Regra> curingas = new ArrayList<>(1);
+
+		private No(String segmento) {
+			this.segmento = segmento;
+		}
+
+		private No filho(String caminho, int inicio, int fim) {
+			int tamanho = fim - inicio;
+			for (No filho : this.filhos) {
+				if (filho.segmento.length() == tamanho && caminho.regionMatches(inicio, filho.segmento, 0, tamanho)) {
+					return filho;
+				}
+			}
+			return null;
+		}
+
+		private No filhoOuNovo(String segmento) {
+			No filho = this.filho(segmento, 0, segmento.length());
+			if (filho == null) {
+				filho = new No(segmento);
+				No[] novosFilhos = new No[this.filhos.length + 1];
+				System.arraycopy(this.filhos, 0, novosFilhos, 0, this.filhos.length);
+				novosFilhos[this.filhos.length] = filho;
+				this.filhos = novosFilhos;
+			}
+			return filho;
+		}
+
+		// A regra do método da requisição tem prioridade sobre a que vale para qualquer método
+		private Regra escolher(List<Regra> candidatas, String metodo, Regra atual) {
+			Regra qualquerMetodo = null;
+			for (int i = 0; i < candidatas.size(); i++) {
+				Regra regra = candidatas.get(i);
+				if (regra.metodo == null) {
+					if (qualquerMetodo == null)
+						qualquerMetodo = regra;
+				} else if (regra.metodo.equals(metodo)) {
+					return regra;
+				}
+			}
+			return qualquerMetodo != null ? qualquerMetodo : atual;
+		}
+	}
+
+	public static final class Regra {
+
+		private final String metodo;
+		private final String padrao;
+		private final String autoridade;
+
+		private Regra(String metodo, String padrao, String autoridade) {
+			this.metodo = metodo;
+			this.padrao = padrao;
+			this.autoridade = autoridade;
+		}
+
+		public HttpMethod getMetodo() {
+			return this.metodo == null ? null : HttpMethod.valueOf(this.metodo);
+		}
+
+		public String getPadrao() {
+			return this.padrao;
+		}
+
+		// Perfil ou permissão exigida, null quando a rota é liberada
+		public String getAutoridade() {
+			return this.autoridade;
+		}
+
+		public boolean isLiberada() {
+			return this.autoridade == null;
+		}
+	}
+}
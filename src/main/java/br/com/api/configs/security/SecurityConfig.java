@@ -1,48 +1,115 @@
 package br.com.api.configs.security;
 
+import static br.com.api.models.Perfil.PERFIL_ADMIN;
+import static br.com.api.models.Perfil.PERFIL_USUARIO;
+import static br.com.api.models.Perfil.PERMISSAO_USUARIOS_EDITAR;
+import static br.com.api.models.Perfil.PERMISSAO_USUARIOS_EXCLUIR;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
 
+import br.com.api.configs.security.RegrasAcesso.Regra;
+import br.com.api.configs.security.jwt.FiltroSegurancaApi;
 import br.com.api.configs.security.jwt.JwtConfigurer;
 import br.com.api.configs.security.jwt.JwtTokenProvider;
-import static br.com.api.models.Perfil.PERFIL_USUARIO;
-import static br.com.api.models.Perfil.PERFIL_ADMIN;
 
 @Configuration
-public class SecurityConfig extends WebSecurityConfigurerAdapter {
-
-	@Autowired
-	private JwtTokenProvider tokenProvider;
-	
-	protected void configure(HttpSecurity http) throws Exception {
-		http
-		.httpBasic().disable()
-		.csrf().disable()
-		.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
-		.authorizeRequests()
-		.antMatchers("/acesso/**").permitAll()
-		.antMatchers(HttpMethod.POST,"/api/usuarios").permitAll()	
-		.antMatchers("/admin/**").hasAuthority(PERFIL_ADMIN)
-		.antMatchers("/api/**").hasAnyAuthority(PERFIL_USUARIO, PERFIL_ADMIN)
-		.and().apply(new JwtConfigurer(this.tokenProvider));
-	}
+public class SecurityConfig {
 
 	@Bean
-	@Override
-	public AuthenticationManager authenticationManagerBean() throws Exception {
-		return super.authenticationManagerBean();
+	public RegrasAcesso regrasAcesso() {
+		return new RegrasAcesso()
+				.liberar("/acesso/**")
+				.liberar(HttpMethod.POST, "/api/usuarios")
+				.liberar(HttpMethod.GET, "/api/usuarios/disponibilidade") // Validação do formulário de cadastro
+				.exigir(PERFIL_ADMIN, "/admin/**", "/actuator/**")
+				.exigir(PERMISSAO_USUARIOS_EDITAR, "/api/usuarios/lote") // Inclui usuarios em nome de terceiros
+				.exigir(PERMISSAO_USUARIOS_EXCLUIR, "/api/usuarios/lote/excluir", "/api/usuarios/lote/restaurar")
+				.exigir(PERFIL_USUARIO, "/api/**"); // O administrador herda o perfil de usuario
 	}
 
-	@Bean
-	public BCryptPasswordEncoder passwordEncode() {
-		BCryptPasswordEncoder encode = new BCryptPasswordEncoder();
-		return encode;
+	// Padrao: um unico filtro com as regras compiladas, sem os filtros padrao do Spring Security
+	@Configuration
+	@ConditionalOnProperty(name = "security.filtro.enxuto", havingValue = "true", matchIfMissing = true)
+	public static class FiltroEnxuto extends WebSecurityConfigurerAdapter {
+
+		@Autowired
+		private JwtTokenProvider tokenProvider;
+
+		@Autowired
+		private RegrasAcesso regrasAcesso;
+
+		@Autowired
+		private IndiceChaveApi indiceChaveApi;
+
+		public FiltroEnxuto() {
+			super(true);
+		}
+
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			http.addFilterAt(new FiltroSegurancaApi(this.regrasAcesso, this.tokenProvider, this.indiceChaveApi),
+					SecurityContextPersistenceFilter.class);
+		}
+
+		@Bean
+		@Override
+		public AuthenticationManager authenticationManagerBean() throws Exception {
+			return super.authenticationManagerBean();
+		}
+	}
+
+	// Cadeia completa do Spring Security com as mesmas regras, ativada com security.filtro.enxuto=false
+	@Configuration
+	@ConditionalOnProperty(name = "security.filtro.enxuto", havingValue = "false")
+	public static class FiltroCompleto extends WebSecurityConfigurerAdapter {
+
+		@Autowired
+		private JwtTokenProvider tokenProvider;
+
+		@Autowired
+		private RegrasAcesso regrasAcesso;
+
+		@Autowired
+		private IndiceChaveApi indiceChaveApi;
+
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry registro = http
+					.httpBasic().disable()
+					.csrf().disable()
+					.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
+					.authorizeRequests()
+					.expressionHandler(new ExpressaoPermissoes());
+
+			// mvcMatchers casam as rotas como o Spring MVC, inclusive com a barra final
+			for (Regra regra : this.regrasAcesso.getRegras()) {
+				if (regra.isLiberada())
+					registro.mvcMatchers(regra.getMetodo(), regra.getPadrao()).permitAll();
+				else
+					registro.mvcMatchers(regra.getMetodo(), regra.getPadrao()).access(possui(regra.getAutoridade()));
+			}
+
+			registro.and().apply(new JwtConfigurer(this.tokenProvider, this.indiceChaveApi));
+		}
+
+		@Bean
+		@Override
+		public AuthenticationManager authenticationManagerBean() throws Exception {
+			return super.authenticationManagerBean();
+		}
+
+		private static String possui(String autoridade) {
+			return "possui('" + autoridade + "')";
+		}
 	}
 }
@@ -0,0 +1,71 @@
+package br.com.api.configs.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+@Configuration
+public class SenhaConfig {
+
+	private static Logger logger = Logger.getLogger(SenhaConfig.class);
+
+	private static final int CUSTO_MINIMO_BCRYPT = 10;
+	private static final int CUSTO_MAXIMO_BCRYPT = 16;
+
+	// Algoritmo dos novos hashes, os demais continuam válidos pelo prefixo {id}
+	@Value("${security.senha.algoritmo:bcrypt}")
+	private String algoritmo = "bcrypt";
+
+	// Quando informado dispensa a calibração
+	@Value("${security.senha.bcrypt.custo:0}")
+	private int custoBcrypt = 0;
+
+	@Value("${security.senha.tempo-alvo-ms:250}")
+	private long tempoAlvoEmMs = 250;
+
+	@Bean
+	public PasswordEncoder passwordEncode() {
+		int custo = custoBcrypt > 0 ? custoBcrypt : calibrarCustoBcrypt(tempoAlvoEmMs);
+		logger.info("Custo do bcrypt: " + custo);
+
+		BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(custo);
+		Map<String, PasswordEncoder> encoders = new HashMap<>();
+		encoders.put("bcrypt", bcrypt);
+		encoders.put("pbkdf2", new Pbkdf2PasswordEncoder());
+
+		// O argon2 depende do BouncyCastle, que não faz parte do projeto por padrão
+		if (ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters", null)) {
+			encoders.put("argon2", new Argon2PasswordEncoder());
+		}
+
+		DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algoritmo, encoders);
+		encoder.setDefaultPasswordEncoderForMatches(bcrypt); // Hashes gravados antes do prefixo
+		return encoder;
+	}
+
+	// Maior custo cujo hash não passa do tempo alvo neste hardware, cada incremento dobra o tempo
+	private static int calibrarCustoBcrypt(long tempoAlvoEmMs) {
+		new BCryptPasswordEncoder(4).encode("aquecimento");
+
+		long inicio = System.nanoTime();
+		new BCryptPasswordEncoder(CUSTO_MINIMO_BCRYPT).encode("calibracao");
+		double tempoEmMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000.0);
+
+		int custo = CUSTO_MINIMO_BCRYPT;
+		while (custo < CUSTO_MAXIMO_BCRYPT && tempoEmMs * 2 <= tempoAlvoEmMs) {
+			tempoEmMs *= 2;
+			custo++;
+		}
+		return custo;
+	}
+}
@@ -1,11 +1,15 @@
 package br.com.api.configs.security;
 
+import javax.persistence.EntityNotFoundException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import br.com.api.configs.security.CacheUsuarioAutenticado.Entrada;
+import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.models.Usuario;
 import br.com.api.services.UsuarioService;
 
@@ -15,15 +19,34 @@ public class UserDetailService implements UserDetailsService {
 	@Autowired
 	private UsuarioService service;
 
+	@Autowired
+	private CacheUsuarioAutenticado cache;
+
 	public UserDetailService(UsuarioService service) {
 		this.service = service;
 	}
 
+	// Um novo UserDetail a cada chamada, o Spring apaga a senha do principal apos o login
 	@Override
 	public UserDetails loadUserByUsername(String login) throws UsernameNotFoundException {
-		Usuario usuario = service.consultarPorLogin(login);
+		Entrada entrada = cache.consultar(login);
+		if (entrada != null) {
+			if (entrada.isInexistente())
+				throw new EntityNotFoundException(ExceptionsConstantes.LOGIN_INVALIDO);
+			return new UserDetail(entrada.getUsuario());
+		}
+
+		long geracao = cache.getGeracao();
+		Usuario usuario;
+		try {
+			usuario = service.consultarPorLogin(login);
+		} catch (EntityNotFoundException e) {
+			cache.armazenarInexistente(login, geracao);
+			throw e;
+		}
+
+		cache.armazenar(login, usuario, geracao);
 		return new UserDetail(usuario);
-
 	}
 
 }
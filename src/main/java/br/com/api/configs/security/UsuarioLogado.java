@@ -0,0 +1,67 @@
+package br.com.api.configs.security;
+
+import static br.com.api.models.Perfil.PERFIL_ADMIN;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import br.com.api.configs.security.CatalogoPermissoes.Permissoes;
+
+/**
+ * Principal guardado no SecurityContext a cada requisição autenticada. Imutável,
+ * sem senha e sem entidades do Hibernate. As permissões vêm do
+ * CatalogoPermissoes e são compartilhadas entre os usuários com a mesma
+ * combinação de perfis.
+ */
+public final class UsuarioLogado implements Principal, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Long id;
+	private final String login;
+	private final Permissoes permissoes;
+
+	private UsuarioLogado(Long id, String login, Permissoes permissoes) {
+		this.id = id;
+		this.login = login;
+		this.permissoes = permissoes;
+	}
+
+	public static UsuarioLogado de(Long id, String login, Permissoes permissoes) {
+		return new UsuarioLogado(id, login, permissoes);
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getLogin() {
+		return this.login;
+	}
+
+	@Override
+	public String getName() {
+		return this.login;
+	}
+
+	public List<GrantedAuthority> getAutoridades() {
+		return this.permissoes.getAutoridades();
+	}
+
+	// Perfil, inclusive herdado, ou permissão
+	public boolean possui(String autoridade) {
+		return this.permissoes.possui(autoridade);
+	}
+
+	public boolean isAdministrador() {
+		return this.possui(PERFIL_ADMIN);
+	}
+
+	@Override
+	public String toString() {
+		return this.login;
+	}
+}
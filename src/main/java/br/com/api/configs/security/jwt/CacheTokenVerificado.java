@@ -0,0 +1,187 @@
+package br.com.api.configs.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Cache dos tokens já verificados, indexado pelo SHA-256 do token. Cada entrada
+ * guarda a autenticação montada e expira junto com o próprio token, evitando
+ * refazer o parse e a consulta do usuário a cada requisição.
+ */
+@Component
+public class CacheTokenVerificado implements MeterBinder {
+
+	private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final int tamanhoMaximo;
+
+	private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+	private final LongAdder acertos = new LongAdder();
+	private final LongAdder falhas = new LongAdder();
+	private final LongAdder despejos = new LongAdder();
+
+	public CacheTokenVerificado(@Value("${security.jwt.cache.tamanho-maximo:10000}") int tamanhoMaximo) {
+		this.tamanhoMaximo = tamanhoMaximo;
+	}
+
+	public Authentication consultar(String token) {
+		Entrada entrada = this.consultarEntrada(token);
+		return entrada == null ? null : entrada.autenticacao;
+	}
+
+	// A autenticação junto com a expiração do token, usada na introspecção
+	public Entrada consultarEntrada(String token) {
+		String chave = gerarChave(token);
+		Entrada entrada = this.entradas.get(chave);
+
+		if (entrada == null) {
+			this.falhas.increment();
+			return null;
+		}
+
+		if (entrada.isExpirada(System.currentTimeMillis())) {
+			if (this.entradas.remove(chave, entrada))
+				this.despejos.increment();
+			this.falhas.increment();
+			return null;
+		}
+
+		this.acertos.increment();
+		return entrada;
+	}
+
+	public void armazenar(String token, String login, Authentication autenticacao, Date expiracao) {
+		if (this.tamanhoMaximo <= 0 || expiracao == null) {
+			return;
+		}
+
+		if (this.entradas.size() >= this.tamanhoMaximo) {
+			this.liberarEspaco();
+		}
+
+		this.entradas.put(gerarChave(token), new Entrada(login, autenticacao, expiracao.getTime()));
+	}
+
+	public void invalidar(String token) {
+		this.entradas.remove(gerarChave(token));
+	}
+
+	// Remove as entradas do login informado, usado quando o usuário é alterado
+	public void invalidarPorLogin(String login) {
+		if (login == null) {
+			return;
+		}
+
+		this.entradas.values().removeIf(entrada -> login.equals(entrada.login));
+	}
+
+	public void limpar() {
+		this.entradas.clear();
+	}
+
+	public int getTamanho() {
+		return this.entradas.size();
+	}
+
+	public long getAcertos() {
+		return this.acertos.sum();
+	}
+
+	public long getFalhas() {
+		return this.falhas.sum();
+	}
+
+	public long getDespejos() {
+		return this.despejos.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("jwt.cache.consultas", this.acertos, LongAdder::sum).tag("resultado", "acerto")
+				.register(registry);
+		FunctionCounter.builder("jwt.cache.consultas", this.falhas, LongAdder::sum).tag("resultado", "falha")
+				.register(registry);
+		FunctionCounter.builder("jwt.cache.despejos", this.despejos, LongAdder::sum).register(registry);
+		Gauge.builder("jwt.cache.tamanho", this.entradas, Map::size).register(registry);
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	// Primeiro descarta os expirados, se ainda estiver cheio libera 10% das entradas
+	private void liberarEspaco() {
+		long agora = System.currentTimeMillis();
+		Iterator<Entrada> iterator = this.entradas.values().iterator();
+
+		while (iterator.hasNext()) {
+			if (iterator.next().isExpirada(agora)) {
+				iterator.remove();
+				this.despejos.increment();
+			}
+		}
+
+		int limite = this.tamanhoMaximo - Math.max(1, this.tamanhoMaximo / 10);
+		iterator = this.entradas.values().iterator();
+
+		while (this.entradas.size() > limite && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			this.despejos.increment();
+		}
+	}
+
+	private static String gerarChave(String token) {
+		byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+		return Base64.getEncoder().withoutPadding().encodeToString(digest);
+	}
+
+	public static final class Entrada {
+
+		private final String login;
+		private final Authentication autenticacao;
+		private final long expiraEm;
+
+		private Entrada(String login, Authentication autenticacao, long expiraEm) {
+			this.login = login;
+			this.autenticacao = autenticacao;
+			this.expiraEm = expiraEm;
+		}
+
+		public Authentication getAutenticacao() {
+			return this.autenticacao;
+		}
+
+		// Em milissegundos
+		public long getExpiraEm() {
+			return this.expiraEm;
+		}
+
+		private boolean isExpirada(long agora) {
+			return agora >= this.expiraEm;
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package br.com.api.configs.security.jwt;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.api.models.ChaveJwt;
+import br.com.api.repositories.ChaveJwtRepository;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.Getter;
+
+/**
+ * Chaves RSA usadas na assinatura RS256 dos tokens, indexadas pelo kid. As
+ * chaves ficam no banco, então todas as instâncias e os reinícios assinam e
+ * publicam as mesmas. A chave seguinte é publicada no JWKS um intervalo de
+ * rotação antes de entrar em uso, e a chave aposentada continua válida até a
+ * expiração dos tokens que assinou. Com o HS256 o chaveiro fica vazio.
+ */
+@Component
+public class ChaveiroToken {
+
+	private static Logger logger = Logger.getLogger(ChaveiroToken.class);
+
+	private static final String CIFRA = "AES/GCM/NoPadding";
+	private static final int TAMANHO_IV = 12;
+	private static final int TAMANHO_TAG = 128;
+
+	// Um kid desconhecido recarrega o banco no máximo uma vez neste intervalo
+	private static final long INTERVALO_MINIMO_RECARGA = 5000;
+
+	private static final SecureRandom GERADOR = new SecureRandom();
+
+	private final ChaveJwtRepository repository;
+	private final TransactionTemplate transacao;
+
+	private final boolean ativo;
+	private final int tamanhoChave;
+	private final long intervaloRotacao;
+	private final long validadeToken;
+	private final SecretKeySpec chaveCifra;
+
+	private volatile Map<String, ChaveAssinatura> chaves = Collections.emptyMap();
+
+	private volatile ChaveAssinatura chaveAtual;
+
+	// Montado só na carga, as consultas ao endpoint não alocam nada
+	private volatile Map<String, Object> jwks = Collections.<String, Object>singletonMap("keys",
+			Collections.emptyList());
+	private volatile String versaoJwks = Integer.toHexString(0);
+
+	private volatile long ultimaRecarga;
+
+	public ChaveiroToken(ChaveJwtRepository repository, PlatformTransactionManager transactionManager,
+			@Value("${security.jwt.algoritmo:HS256}") String algoritmo,
+			@Value("${security.jwt.chaves.tamanho:2048}") int tamanhoChave,
+			@Value("${security.jwt.chaves.rotacao-horas:24}") long horasRotacao,
+			@Value("${security.jwt.token.expire-lenght:1440}") long validadeEmMinutos,
+			@Value("${security.jwt.chaves.segredo:${security.jwt.token.secret-key:secret}}") String segredo) {
+		this.repository = repository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.ativo = SignatureAlgorithm.RS256.getValue().equals(algoritmo);
+		this.tamanhoChave = tamanhoChave;
+		this.intervaloRotacao = TimeUnit.HOURS.toMillis(horasRotacao);
+		this.validadeToken = TimeUnit.MINUTES.toMillis(validadeEmMinutos);
+		this.chaveCifra = new SecretKeySpec(sha256(segredo), "AES");
+	}
+
+	@PostConstruct
+	public void carregar() {
+		if (this.ativo) {
+			this.sincronizar(System.currentTimeMillis(), false);
+		}
+	}
+
+	public boolean isAtivo() {
+		return this.ativo;
+	}
+
+	public ChaveAssinatura getChaveAtual() {
+		return this.chaveAtual;
+	}
+
+	// Null quando o kid é desconhecido ou a chave já foi descartada. O kid ainda não carregado pode ser
+	// de uma chave criada há pouco por outra instância, então o banco é consultado de novo
+	public PublicKey getChavePublica(String kid) {
+		if (kid == null || !this.ativo) {
+			return null;
+		}
+
+		ChaveAssinatura chave = this.chaves.get(kid);
+		if (chave == null && this.recarregar()) {
+			chave = this.chaves.get(kid);
+		}
+		return chave == null ? null : chave.getPublica();
+	}
+
+	public Map<String, Object> getJwks() {
+		return this.jwks;
+	}
+
+	public String getVersaoJwks() {
+		return this.versaoJwks;
+	}
+
+	// Cada instância confere a rotação e recarrega as chaves que as outras criaram
+	@Scheduled(fixedDelayString = "${security.jwt.chaves.intervalo-verificacao:60000}")
+	public void verificarRotacao() {
+		if (this.ativo) {
+			this.verificarRotacao(System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	void verificarRotacao(long agora) {
+		this.sincronizar(agora, true);
+	}
+
+	private boolean recarregar() {
+		long agora = System.currentTimeMillis();
+		if (agora - this.ultimaRecarga < INTERVALO_MINIMO_RECARGA) {
+			return false;
+		}
+
+		this.ultimaRecarga = agora;
+		this.sincronizar(agora, false);
+		return true;
+	}
+
+	private synchronized void sincronizar(long agora, boolean rotacionar) {
+		List<ChaveJwt> registros = this.transacao.execute(status -> this.atualizarBanco(agora, rotacionar));
+		this.publicar(registros);
+	}
+
+	// Garante uma chave atual e uma seguinte, rotaciona quando for a hora e descarta as aposentadas cujos
+	// tokens já expiraram. Quando duas instâncias fazem o mesmo passo, o update condicional deixa só uma
+	private List<ChaveJwt> atualizarBanco(long agora, boolean rotacionar) {
+		LocalDateTime data = toData(agora);
+		List<ChaveJwt> registros = this.repository.findAllByOrderByDataCriacaoAscKidAsc();
+		ChaveJwt atual = getAtual(registros);
+		ChaveJwt seguinte = getSeguinte(registros);
+
+		if (atual == null && seguinte != null && this.repository.ativar(seguinte.getKid(), data) == 1) {
+			atual = seguinte;
+			seguinte = null;
+		} else if (atual == null) {
+			atual = this.criarChave(data);
+			atual.setDataAtivacao(data);
+			this.repository.saveAndFlush(atual);
+		} else if (rotacionar && seguinte != null
+				&& agora - toMillis(atual.getDataAtivacao()) >= this.intervaloRotacao
+				&& this.repository.aposentar(atual.getKid(), data) == 1) {
+			this.repository.ativar(seguinte.getKid(), data);
+			logger.info("Chave de assinatura rotacionada: " + seguinte.getKid());
+			seguinte = null;
+		}
+
+		if (seguinte == null) {
+			this.repository.saveAndFlush(this.criarChave(data));
+		}
+
+		// Instâncias iniciadas juntas podem ter criado chaves em paralelo: todas escolhem a mesma atual e
+		// a mesma seguinte, as demais apenas verificam os tokens que já assinaram
+		registros = this.repository.findAllByOrderByDataCriacaoAscKidAsc();
+		atual = getAtual(registros);
+		seguinte = getSeguinte(registros);
+		for (ChaveJwt registro : registros) {
+			if (registro.getDataAposentadoria() == null && registro != atual && registro != seguinte) {
+				this.repository.aposentar(registro.getKid(), data);
+			}
+		}
+
+		this.repository.removerAposentadas(toData(agora - this.validadeToken));
+		return this.repository.findAllByOrderByDataCriacaoAscKidAsc();
+	}
+
+	private ChaveJwt criarChave(LocalDateTime data) {
+		try {
+			KeyPairGenerator gerador = KeyPairGenerator.getInstance("RSA");
+			gerador.initialize(this.tamanhoChave);
+			KeyPair par = gerador.generateKeyPair();
+
+			String kid = UUID.randomUUID().toString();
+			return new ChaveJwt(kid, this.cifrar(kid, par.getPrivate().getEncoded()),
+					Base64.getEncoder().encodeToString(par.getPublic().getEncoded()), data);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// As chaves já carregadas são reaproveitadas, só as novas são decifradas
+	private void publicar(List<ChaveJwt> registros) {
+		Map<String, ChaveAssinatura> novasChaves = new HashMap<>();
+		List<Map<String, Object>> lista = new ArrayList<>();
+		StringBuilder versao = new StringBuilder();
+
+		for (ChaveJwt registro : registros) {
+			ChaveAssinatura chave = this.chaves.get(registro.getKid());
+			if (chave == null) {
+				chave = this.converterChave(registro);
+			}
+			novasChaves.put(chave.getKid(), chave);
+
+			Map<String, Object> jwk = new LinkedHashMap<>();
+			jwk.put("kty", "RSA");
+			jwk.put("use", "sig");
+			jwk.put("alg", "RS256");
+			jwk.put("kid", chave.getKid());
+			jwk.put("n", base64Url(chave.getPublica().getModulus()));
+			jwk.put("e", base64Url(chave.getPublica().getPublicExponent()));
+			lista.add(Collections.unmodifiableMap(jwk));
+			versao.append(chave.getKid());
+		}
+
+		this.chaves = novasChaves;
+		this.chaveAtual = novasChaves.get(getAtual(registros).getKid());
+		this.jwks = Collections.singletonMap("keys", Collections.unmodifiableList(lista));
+		this.versaoJwks = Integer.toHexString(versao.toString().hashCode());
+	}
+
+	private ChaveAssinatura converterChave(ChaveJwt registro) {
+		try {
+			KeyFactory fabrica = KeyFactory.getInstance("RSA");
+			PrivateKey privada = fabrica.generatePrivate(
+					new PKCS8EncodedKeySpec(this.decifrar(registro.getKid(), registro.getChavePrivada())));
+			RSAPublicKey publica = (RSAPublicKey) fabrica.generatePublic(
+					new X509EncodedKeySpec(Base64.getDecoder().decode(registro.getChavePublica())));
+			return new ChaveAssinatura(registro.getKid(), privada, publica);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Chave de assinatura ilegível, confira o security.jwt.chaves.segredo: "
+					+ registro.getKid(), e);
+		}
+	}
+
+	// O kid entra como dado autenticado, a chave cifrada não pode ser trocada de registro
+	private String cifrar(String kid, byte[] dados) throws GeneralSecurityException {
+		byte[] iv = new byte[TAMANHO_IV];
+		GERADOR.nextBytes(iv);
+
+		Cipher cifra = Cipher.getInstance(CIFRA);
+		cifra.init(Cipher.ENCRYPT_MODE, this.chaveCifra, new GCMParameterSpec(TAMANHO_TAG, iv));
+		cifra.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+		byte[] cifrado = cifra.doFinal(dados);
+
+		return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + cifrado.length).put(iv)
+				.put(cifrado).array());
+	}
+
+	private byte[] decifrar(String kid, String valor) throws GeneralSecurityException {
+		byte[] dados = Base64.getDecoder().decode(valor);
+
+		Cipher cifra = Cipher.getInstance(CIFRA);
+		cifra.init(Cipher.DECRYPT_MODE, this.chaveCifra, new GCMParameterSpec(TAMANHO_TAG, dados, 0, TAMANHO_IV));
+		cifra.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+		return cifra.doFinal(dados, TAMANHO_IV, dados.length - TAMANHO_IV);
+	}
+
+	// A ativada mais recente, com o kid desempatando, para que todas as instâncias escolham a mesma
+	private static ChaveJwt getAtual(List<ChaveJwt> registros) {
+		return registros.stream().filter(c -> c.getDataAtivacao() != null && c.getDataAposentadoria() == null)
+				.max(Comparator.comparing(ChaveJwt::getDataAtivacao).thenComparing(ChaveJwt::getKid)).orElse(null);
+	}
+
+	// A primeira criada entre as ainda não ativadas, os registros já vêm nesta ordem
+	private static ChaveJwt getSeguinte(List<ChaveJwt> registros) {
+		List<ChaveJwt> seguintes = registros.stream()
+				.filter(c -> c.getDataAtivacao() == null && c.getDataAposentadoria() == null)
+				.collect(Collectors.toList());
+		return seguintes.isEmpty() ? null : seguintes.get(0);
+	}
+
+	private static LocalDateTime toData(long millis) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+	}
+
+	private static long toMillis(LocalDateTime data) {
+		return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static byte[] sha256(String valor) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(valor.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Inteiro sem sinal em big-endian, como pede o JWK
+	private static String base64Url(BigInteger valor) {
+		byte[] bytes = valor.toByteArray();
+		if (bytes.length > 1 && bytes[0] == 0) {
+			bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	@Getter
+	public static final class ChaveAssinatura {
+
+		private final String kid;
+		private final PrivateKey privada;
+		private final RSAPublicKey publica;
+
+		private ChaveAssinatura(String kid, PrivateKey privada, RSAPublicKey publica) {
+			this.kid = kid;
+			this.privada = privada;
+			this.publica = publica;
+		}
+	}
+}
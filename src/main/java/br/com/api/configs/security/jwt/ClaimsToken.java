@@ -0,0 +1,51 @@
+package br.com.api.configs.security.jwt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+/**
+ * Apenas as claims que a autenticação utiliza, extraídas de um token já
+ * verificado.
+ */
+@Getter
+public class ClaimsToken {
+
+	private final String login;
+	private final Long idUsuario;
+	private final int versao;
+	private final String jti;
+	private final long expiracao; // Em milissegundos
+	private final List<String> perfis;
+
+	public ClaimsToken(String login, Long idUsuario, int versao, String jti, long expiracao, List<String> perfis) {
+		this.login = login;
+		this.idUsuario = idUsuario;
+		this.versao = versao;
+		this.jti = jti;
+		this.expiracao = expiracao;
+		this.perfis = perfis == null ? Collections.emptyList() : perfis;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static ClaimsToken de(Claims claims) {
+		Integer versao = claims.get("ver", Integer.class);
+		List<String> perfis = claims.get("roles", List.class);
+		long expiracao = claims.getExpiration() == null ? 0 : claims.getExpiration().getTime(); // Sem exp é tratado como expirado
+
+		return new ClaimsToken(claims.getSubject(), claims.get("id", Long.class), versao == null ? 0 : versao,
+				claims.getId(), expiracao, perfis == null ? null : new ArrayList<>(perfis));
+	}
+
+	public boolean isExpirado(long agora) {
+		return agora >= this.expiracao;
+	}
+
+	public Date getDataExpiracao() {
+		return new Date(this.expiracao);
+	}
+}
@@ -0,0 +1,81 @@
+package br.com.api.configs.security.jwt;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.GenericFilterBean;
+
+import br.com.api.configs.security.IndiceChaveApi;
+import br.com.api.configs.security.RegrasAcesso;
+import br.com.api.configs.security.RegrasAcesso.Regra;
+import br.com.api.configs.security.UsuarioLogado;
+
+/**
+ * Único filtro da cadeia enxuta: consulta a regra da rota, e só quando ela exige
+ * autorização lê a chave de API ou o token, autentica e testa a permissão. Sem sessão, CSRF,
+ * request cache ou demais filtros padrão do Spring Security.
+ */
+public class FiltroSegurancaApi extends GenericFilterBean {
+
+	private final RegrasAcesso regras;
+
+	private final JwtTokenProvider tokenProvider;
+
+	private final IndiceChaveApi indiceChaveApi;
+
+	public FiltroSegurancaApi(RegrasAcesso regras, JwtTokenProvider tokenProvider, IndiceChaveApi indiceChaveApi) {
+		this.regras = regras;
+		this.tokenProvider = tokenProvider;
+		this.indiceChaveApi = indiceChaveApi;
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+
+		Regra regra = this.regras.consultar((HttpServletRequest) request);
+		if (regra == null || regra.isLiberada()) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		Authentication auth = this.autenticar((HttpServletRequest) request);
+		if (auth == null || !((UsuarioLogado) auth.getPrincipal()).possui(regra.getAutoridade())) {
+			// Mesma resposta do Http403ForbiddenEntryPoint e do AccessDeniedHandlerImpl
+			((HttpServletResponse) response).sendError(HttpServletResponse.SC_FORBIDDEN, "Access Denied");
+			return;
+		}
+
+		SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+		contexto.setAuthentication(auth);
+		SecurityContextHolder.setContext(contexto);
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			SecurityContextHolder.clearContext(); // Sem o SecurityContextPersistenceFilter a limpeza fica aqui
+		}
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private Authentication autenticar(HttpServletRequest request) {
+		String chave = request.getHeader(IndiceChaveApi.CABECALHO);
+		if (chave != null) {
+			return this.indiceChaveApi.autenticar(chave);
+		}
+
+		String token = this.tokenProvider.getToken(request);
+		return token == null ? null : this.tokenProvider.autenticar(token);
+	}
+}
@@ -6,18 +6,24 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import br.com.api.configs.security.IndiceChaveApi;
+
 public class JwtConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
 	
 	@Autowired
 	private JwtTokenProvider tokenProvider;
 
-	public JwtConfigurer(JwtTokenProvider tokenProvider) {
+	@Autowired
+	private IndiceChaveApi indiceChaveApi;
+
+	public JwtConfigurer(JwtTokenProvider tokenProvider, IndiceChaveApi indiceChaveApi) {
 		this.tokenProvider = tokenProvider;
+		this.indiceChaveApi = indiceChaveApi;
 	}
 	
 	@Override
 	public void configure(HttpSecurity http) throws Exception {
-		JwtTokenFilter filter = new JwtTokenFilter(this.tokenProvider);
+		JwtTokenFilter filter = new JwtTokenFilter(this.tokenProvider, this.indiceChaveApi);
 		http.addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class);
 	}
 	
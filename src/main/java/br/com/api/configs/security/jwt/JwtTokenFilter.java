@@ -13,23 +13,40 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.GenericFilterBean;
 
+import br.com.api.configs.security.IndiceChaveApi;
+
 public class JwtTokenFilter extends GenericFilterBean {
 
 	@Autowired
 	private JwtTokenProvider tokenProvider;
 
-	public JwtTokenFilter(JwtTokenProvider tokenProvider) {
+	@Autowired
+	private IndiceChaveApi indiceChaveApi;
+
+	public JwtTokenFilter(JwtTokenProvider tokenProvider, IndiceChaveApi indiceChaveApi) {
 
 		this.tokenProvider = tokenProvider;
+		this.indiceChaveApi = indiceChaveApi;
 	}
 
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
 			throws IOException, ServletException {
 
+		// A chave de API dispensa o token, a autenticacao e so o hash da chave e uma consulta no indice
+		String chave = ((HttpServletRequest) request).getHeader(IndiceChaveApi.CABECALHO);
+		if (chave != null) {
+			Authentication auth = indiceChaveApi.autenticar(chave);
+			if (auth != null) {
+				SecurityContextHolder.getContext().setAuthentication(auth);
+			}
+			chain.doFilter(request, response);
+			return;
+		}
+
 		String token = tokenProvider.getToken((HttpServletRequest) request);
-		if (token != null && tokenProvider.isTokenValido(token)) {
-			Authentication auth = tokenProvider.getAuthentication(token);
+		if (token != null) {
+			Authentication auth = tokenProvider.autenticar(token);
 			if (auth != null) {
 				SecurityContextHolder.getContext().setAuthentication(auth);
 			}
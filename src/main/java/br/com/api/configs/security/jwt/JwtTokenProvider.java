@@ -1,13 +1,17 @@
 package br.com.api.configs.security.jwt;
 
+import java.security.Key;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
+import javax.persistence.EntityNotFoundException;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.log4j.Logger;
@@ -15,18 +19,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import br.com.api.configs.security.CatalogoPermissoes;
+import br.com.api.configs.security.UserDetail;
 import br.com.api.configs.security.UserDetailService;
+import br.com.api.configs.security.UsuarioLogado;
+import br.com.api.configs.security.jwt.CacheTokenVerificado.Entrada;
+import br.com.api.configs.security.jwt.ChaveiroToken.ChaveAssinatura;
 import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.exceptions.AuthenticationJwtException;
 import br.com.api.models.Perfil;
 import br.com.api.models.Usuario;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 
 @Service
 public class JwtTokenProvider {
@@ -36,34 +49,119 @@ public class JwtTokenProvider {
 	@Value("${security.jwt.token.secret-key:secret}")
 	private String chave = "secret";
 
+	// HS256 usa o segredo compartilhado entre as instâncias. RS256 assina com o chaveiro, guardado no banco e
+	// publicado no JWKS, e os outros serviços verificam os tokens sem conhecer nenhum segredo
+	@Value("${security.jwt.algoritmo:HS256}")
+	private String algoritmo = "HS256";
+
 	@Value("${security.jwt.token.expire-lenght:1440}")
 	private long validadeEmMinutos = 1440;
 
+	// Quando ativo a autenticação é montada a partir das claims, sem consultar o usuário no banco
+	@Value("${security.jwt.autenticacao-por-claims:false}")
+	private boolean autenticacaoPorClaims = false;
+
 	@Autowired
 	private UserDetailService service;
 
+	@Autowired
+	private CacheTokenVerificado cache;
+
+	@Autowired
+	private RegistroVersaoToken registroVersao;
+
+	@Autowired
+	private ListaRevogacaoToken listaRevogacao;
+
+	@Autowired
+	private ChaveiroToken chaveiro;
+
+	@Autowired
+	private CatalogoPermissoes catalogoPermissoes;
+
+	private byte[] chaveBytes;
+
+	private VerificadorHs256 verificador;
+
+	private boolean assinaturaHs256;
+
+	private final SigningKeyResolver resolvedorChave = new SigningKeyResolverAdapter() {
+		@Override
+		public Key resolveSigningKey(JwsHeader header, Claims claims) {
+			return getChaveVerificacao(header);
+		}
+	};
+
 	@PostConstruct
 	public void init() {
-		chave = Base64.getEncoder().encodeToString(chave.getBytes());
+		chaveBytes = chave.getBytes();
+		chave = Base64.getEncoder().encodeToString(chaveBytes);
+		assinaturaHs256 = SignatureAlgorithm.HS256.getValue().equals(algoritmo);
+		verificador = assinaturaHs256 ? new VerificadorHs256(chaveBytes) : null;
 	}
 
 	public String criarToken(Usuario usuario) {		
 		Claims claims = Jwts.claims().setSubject(usuario.getLogin());
 		claims.put("roles", getPerfis(usuario.getListaPerfis()));
+		claims.put("id", usuario.getId());
+		claims.put("ver", usuario.getVersaoToken() == null ? 0 : usuario.getVersaoToken());
 		
 		LocalDateTime horaAtual = LocalDateTime.now();
 		LocalDateTime horaExpiracaoToken = horaAtual.plusMinutes(this.validadeEmMinutos);
 						
-		return Jwts.builder().setClaims(claims)
+		JwtBuilder builder = Jwts.builder().setClaims(claims)
+				.setId(UUID.randomUUID().toString())
 				.setIssuedAt(Date.from(horaAtual.atZone(ZoneId.systemDefault()).toInstant()))
-				.setExpiration(Date.from(horaExpiracaoToken.atZone(ZoneId.systemDefault()).toInstant()))
-				.signWith(SignatureAlgorithm.HS256, chave)
+				.setExpiration(Date.from(horaExpiracaoToken.atZone(ZoneId.systemDefault()).toInstant()));
+
+		if (assinaturaHs256) {
+			return builder.signWith(SignatureAlgorithm.HS256, chave).compact();
+		}
+
+		ChaveAssinatura chaveAtual = chaveiro.getChaveAtual();
+		return builder.setHeaderParam(JwsHeader.KEY_ID, chaveAtual.getKid())
+				.signWith(SignatureAlgorithm.RS256, chaveAtual.getPrivada())
 				.compact();
 	}
 	
+	// Valida o token e monta a autenticação com um único parse, reaproveitando o cache
+	public Authentication autenticar(String token) {
+		Authentication auth = this.cache.consultar(token);
+		if (auth != null) {
+			return auth;
+		}
+
+		return this.verificar(token, this.getClaimsToken(token));
+	}
+
+	// Para os tokens apresentados por outros serviços: o token inválido vira um resultado, nunca uma exceção
+	public TokenIntrospectado introspectar(String token) {
+		Entrada entrada = this.cache.consultarEntrada(token);
+		if (entrada != null) {
+			return TokenIntrospectado.de(entrada.getAutenticacao(), entrada.getExpiraEm());
+		}
+
+		try {
+			ClaimsToken claims = this.getClaimsToken(token);
+			Authentication auth = this.verificar(token, claims);
+			return auth == null ? TokenIntrospectado.INVALIDO : TokenIntrospectado.de(auth, claims.getExpiracao());
+		} catch (JwtException | EntityNotFoundException ex) {
+			return TokenIntrospectado.INVALIDO;
+		}
+	}
+
+	// Impede o uso do token até a sua expiração, tokens sem jti não podem ser revogados
+	public void revogar(String token) {
+		ClaimsToken claims = this.getClaimsToken(token);
+		if (claims.getJti() != null) {
+			this.listaRevogacao.revogar(claims.getJti(), claims.getDataExpiracao());
+		}
+		this.cache.invalidar(token);
+	}
+
 	public Authentication getAuthentication(String token) {
-		UserDetails user = this.service.loadUserByUsername(getLoginUsuario(token));
-		return new UsernamePasswordAuthenticationToken(user, "", user.getAuthorities());
+		UsuarioLogado usuarioLogado = this.getUsuarioLogado(getLoginUsuario(token));
+		return new UsernamePasswordAuthenticationToken(usuarioLogado, "", usuarioLogado.getAutoridades());
 	}
 	
 	public String getToken(HttpServletRequest request) {		
@@ -77,22 +175,90 @@ public class JwtTokenProvider {
 	}
 	
 	public boolean isTokenValido(String token) {
+		return this.getClaimsToken(token) != null;
+	}
+
+	// Revogação e versão são conferidas a cada verificação, só o resultado válido vai para o cache
+	private Authentication verificar(String token, ClaimsToken claims) {
+		if (this.listaRevogacao.isRevogado(claims.getJti())
+				|| !this.registroVersao.isVersaoValida(claims.getIdUsuario(), claims.getVersao())) {
+			return null;
+		}
+
+		UsuarioLogado usuarioLogado;
+		if (this.autenticacaoPorClaims && claims.getIdUsuario() != null) {
+			usuarioLogado = UsuarioLogado.de(claims.getIdUsuario(), claims.getLogin(),
+					this.catalogoPermissoes.getPermissoes(claims.getPerfis()));
+		} else {
+			usuarioLogado = this.getUsuarioLogado(claims.getLogin());
+		}
+
+		Authentication auth = new UsernamePasswordAuthenticationToken(usuarioLogado, "", usuarioLogado.getAutoridades());
+		this.cache.armazenar(token, claims.getLogin(), auth, claims.getDataExpiracao());
+		return auth;
+	}
+
+	// Tokens no formato emitido por esta API passam pelo verificador dedicado, os demais pelo jjwt
+	private ClaimsToken getClaimsToken(String token) {
+		ClaimsToken claims = null;
 		try {
-			Jws<Claims> claims = Jwts.parser().setSigningKey(chave).parseClaimsJws(token);
-			
-			if(claims.getBody().getExpiration().before(new Date())) {
-				return false;
+			if (this.verificador != null) {
+				claims = this.verificador.verificar(token);
 			}
-			return true;
+		} catch (AuthenticationJwtException ex) {
+			logger.error("", ex);
+			throw ex;
+		}
+
+		if (claims == null) {
+			claims = ClaimsToken.de(this.getClaims(token));
+		}
+
+		// Mesmo comportamento do jjwt, que recusa o token expirado
+		if (claims.isExpirado(System.currentTimeMillis())) {
+			throw new AuthenticationJwtException(ExceptionsConstantes.TOKEN_INVALIDO);
+		}
+		return claims;
+	}
+
+	private Claims getClaims(String token) {
+		try {
+			Jws<Claims> claims = Jwts.parser().setSigningKeyResolver(resolvedorChave).parseClaimsJws(token);
+			return claims.getBody();
 		}catch(Exception ex) {
 			logger.error("", ex);
 			throw new AuthenticationJwtException(ExceptionsConstantes.TOKEN_INVALIDO);
 		}
 	}
 	
+	// Só aceita o algoritmo configurado, evitando que a chave pública seja usada como segredo do HMAC
+	private Key getChaveVerificacao(JwsHeader<?> header) {
+		if (!algoritmo.equals(header.getAlgorithm())) {
+			throw new AuthenticationJwtException(ExceptionsConstantes.TOKEN_INVALIDO);
+		}
+
+		if (assinaturaHs256) {
+			return new SecretKeySpec(chaveBytes, SignatureAlgorithm.HS256.getJcaName());
+		}
+
+		Key chavePublica = chaveiro.getChavePublica(header.getKeyId());
+		if (chavePublica == null) {
+			throw new AuthenticationJwtException(ExceptionsConstantes.TOKEN_INVALIDO);
+		}
+		return chavePublica;
+	}
+
+	// O SecurityContext guarda apenas o principal compacto, nunca a entidade com a senha
+	private UsuarioLogado getUsuarioLogado(String login) {
+		UserDetail user = (UserDetail) this.service.loadUserByUsername(login);
+		Usuario usuario = user.getUsuario();
+		return UsuarioLogado.de(usuario.getId(), usuario.getLogin(),
+				this.catalogoPermissoes.getPermissoes(getPerfis(usuario.getListaPerfis())));
+	}
+
 	// Recuperar o login apartir do token
 	private String getLoginUsuario(String token) {
-		return Jwts.parser().setSigningKey(chave).parseClaimsJws(token).getBody().getSubject();
+		return this.getClaimsToken(token).getLogin();
 	}
 
  	private List<String> getPerfis(List<Perfil> listaPerfis) {
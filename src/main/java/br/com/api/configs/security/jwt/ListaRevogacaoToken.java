@@ -0,0 +1,68 @@
+package br.com.api.configs.security.jwt;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.com.api.utils.FiltroBloom;
+
+/**
+ * Tokens revogados antes da expiração, identificados pelo jti. A consulta passa
+ * primeiro pelo filtro de Bloom, então o caso comum (token não revogado) não
+ * bloqueia nem aloca. Cada entrada vive só até a expiração do próprio token.
+ */
+@Component
+public class ListaRevogacaoToken {
+
+	private static final double TAXA_FALSO_POSITIVO = 0.01;
+
+	private final int capacidade;
+
+	private final Map<String, Long> revogados = new ConcurrentHashMap<>();
+
+	private volatile FiltroBloom filtro;
+
+	public ListaRevogacaoToken(@Value("${security.jwt.revogacao.capacidade:100000}") int capacidade) {
+		this.capacidade = capacidade;
+		this.filtro = new FiltroBloom(capacidade, TAXA_FALSO_POSITIVO);
+	}
+
+	public synchronized void revogar(String jti, Date expiracao) {
+		this.revogados.put(jti, expiracao.getTime());
+		this.filtro.adicionar(jti);
+	}
+
+	public boolean isRevogado(String jti) {
+		if (jti == null || !this.filtro.isTalvezPresente(jti)) {
+			return false;
+		}
+		return this.revogados.containsKey(jti);
+	}
+
+	public int getTamanho() {
+		return this.revogados.size();
+	}
+
+	// Descarta os tokens já expirados e reconstrói o filtro apenas com os que restaram
+	@Scheduled(fixedDelayString = "${security.jwt.revogacao.intervalo-limpeza:60000}")
+	public synchronized void removerExpirados() {
+		long agora = System.currentTimeMillis();
+
+		if (!this.revogados.values().removeIf(expiraEm -> expiraEm <= agora)) {
+			return;
+		}
+
+		FiltroBloom novoFiltro = new FiltroBloom(Math.max(this.capacidade, this.revogados.size()),
+				TAXA_FALSO_POSITIVO);
+
+		for (String jti : this.revogados.keySet()) {
+			novoFiltro.adicionar(jti);
+		}
+
+		this.filtro = novoFiltro;
+	}
+}
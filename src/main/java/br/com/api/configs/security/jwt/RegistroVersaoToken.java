@@ -0,0 +1,44 @@
+package br.com.api.configs.security.jwt;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import br.com.api.repositories.UsuarioRepository;
+
+/**
+ * Versão atual do token de cada usuário, mantida em memória para que o filtro
+ * consiga recusar tokens antigos sem consultar o banco. Só os usuários com
+ * versão maior que zero ocupam espaço no mapa.
+ */
+@Component
+public class RegistroVersaoToken {
+
+	@Autowired
+	private UsuarioRepository repository;
+
+	private final Map<Long, Integer> versoes = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void carregar() {
+		for (Object[] linha : this.repository.findVersoesToken()) {
+			this.versoes.put((Long) linha[0], (Integer) linha[1]);
+		}
+	}
+
+	public int getVersao(Long idUsuario) {
+		return idUsuario == null ? 0 : this.versoes.getOrDefault(idUsuario, 0);
+	}
+
+	public boolean isVersaoValida(Long idUsuario, int versaoToken) {
+		return versaoToken >= this.getVersao(idUsuario);
+	}
+
+	public void atualizar(Long idUsuario, int versao) {
+		this.versoes.merge(idUsuario, versao, Math::max);
+	}
+}
@@ -0,0 +1,51 @@
+package br.com.api.configs.security.jwt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+
+/**
+ * Resultado da introspecção de um token. Para o token inválido apenas o campo
+ * valido é enviado, sem indicar o motivo.
+ */
+@Getter
+@JsonInclude(Include.NON_NULL)
+public final class TokenIntrospectado {
+
+	public static final TokenIntrospectado INVALIDO = new TokenIntrospectado(false, null, null, 0);
+
+	private final boolean valido;
+	private final String login;
+	private final List<String> autoridades; // Perfis, inclusive os herdados, e permissões
+	private final Long expiracao; // Em segundos desde a epoch, como a claim exp
+
+	@JsonIgnore
+	private final long expiraEm; // Em milissegundos
+
+	private TokenIntrospectado(boolean valido, String login, List<String> autoridades, long expiraEm) {
+		this.valido = valido;
+		this.login = login;
+		this.autoridades = autoridades;
+		this.expiraEm = expiraEm;
+		this.expiracao = valido ? TimeUnit.MILLISECONDS.toSeconds(expiraEm) : null;
+	}
+
+	public static TokenIntrospectado de(Authentication autenticacao, long expiraEm) {
+		List<String> autoridades = new ArrayList<>(autenticacao.getAuthorities().size());
+		for (GrantedAuthority autoridade : autenticacao.getAuthorities()) {
+			autoridades.add(autoridade.getAuthority());
+		}
+		return new TokenIntrospectado(true, autenticacao.getName(), Collections.unmodifiableList(autoridades),
+				expiraEm);
+	}
+}
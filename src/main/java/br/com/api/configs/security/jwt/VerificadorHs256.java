@@ -0,0 +1,387 @@
+package br.com.api.configs.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.exceptions.AuthenticationJwtException;
+
+/**
+ * Verificador HS256 dedicado aos tokens emitidos pelo JwtTokenProvider. Reutiliza
+ * um Mac por thread, compara a assinatura em tempo constante e lê do payload só
+ * as claims usadas na autenticação. Quando o token foge do formato esperado
+ * retorna null para que o jjwt faça a verificação completa.
+ */
+public class VerificadorHs256 {
+
+	private static final String ALGORITMO = "HmacSHA256";
+
+	private static final int TAMANHO_ASSINATURA = 32;
+
+	// Cabeçalho gerado pelo jjwt para HS256, qualquer outro cabeçalho fica para o jjwt
+	private static final String CABECALHO = Base64.getUrlEncoder().withoutPadding()
+			.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII));
+
+	private static final int[] BASE64URL = new int[128];
+
+	static {
+		Arrays.fill(BASE64URL, -1);
+		String alfabeto = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		for (int i = 0; i < alfabeto.length(); i++) {
+			BASE64URL[alfabeto.charAt(i)] = i;
+		}
+	}
+
+	private final ThreadLocal<Contexto> contextos;
+
+	public VerificadorHs256(byte[] chave) {
+		SecretKeySpec chaveSecreta = new SecretKeySpec(chave, ALGORITMO);
+		this.contextos = ThreadLocal.withInitial(() -> new Contexto(chaveSecreta));
+	}
+
+	public ClaimsToken verificar(String token) {
+		int fimCabecalho = CABECALHO.length();
+		if (!token.startsWith(CABECALHO) || token.length() <= fimCabecalho || token.charAt(fimCabecalho) != '.') {
+			return null;
+		}
+
+		int fimPayload = token.indexOf('.', fimCabecalho + 1);
+		if (fimPayload < 0 || token.indexOf('.', fimPayload + 1) >= 0) {
+			return null;
+		}
+
+		Contexto contexto = this.contextos.get();
+		if (!contexto.isAssinaturaValida(token, fimPayload)) {
+			throw new AuthenticationJwtException(ExceptionsConstantes.TOKEN_INVALIDO);
+		}
+
+		byte[] buffer = contexto.getBuffer(token.length());
+		int tamanho = decodificar(token, fimCabecalho + 1, fimPayload, buffer, 0);
+		if (tamanho < 0) {
+			return null;
+		}
+
+		return new LeitorPayload(buffer, tamanho).ler();
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	// Decodifica base64url sem padding, retorna -1 se houver caractere inválido
+	private static int decodificar(String texto, int inicio, int fim, byte[] destino, int posicao) {
+		int acumulado = 0;
+		int bits = 0;
+		int inicial = posicao;
+
+		for (int i = inicio; i < fim; i++) {
+			char c = texto.charAt(i);
+			int valor = c < 128 ? BASE64URL[c] : -1;
+			if (valor < 0) {
+				return -1;
+			}
+
+			acumulado = (acumulado << 6) | valor;
+			bits += 6;
+
+			if (bits >= 8) {
+				bits -= 8;
+				if (posicao >= destino.length) {
+					return -1;
+				}
+				destino[posicao++] = (byte) (acumulado >> bits);
+			}
+		}
+
+		return posicao - inicial;
+	}
+
+	// Estado reaproveitado por thread: o Mac já inicializado e os buffers de trabalho
+	private static final class Contexto {
+
+		private final Mac mac;
+		private final byte[] calculada = new byte[TAMANHO_ASSINATURA];
+		private final byte[] recebida = new byte[TAMANHO_ASSINATURA];
+		private byte[] buffer = new byte[512];
+
+		private Contexto(SecretKeySpec chave) {
+			try {
+				this.mac = Mac.getInstance(ALGORITMO);
+				this.mac.init(chave);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private byte[] getBuffer(int tamanho) {
+			if (this.buffer.length < tamanho) {
+				this.buffer = new byte[tamanho];
+			}
+			return this.buffer;
+		}
+
+		private boolean isAssinaturaValida(String token, int fimPayload) {
+			byte[] conteudo = this.getBuffer(fimPayload);
+			for (int i = 0; i < fimPayload; i++) {
+				char c = token.charAt(i);
+				if (c > 127) {
+					return false;
+				}
+				conteudo[i] = (byte) c;
+			}
+
+			try {
+				this.mac.update(conteudo, 0, fimPayload);
+				this.mac.doFinal(this.calculada, 0);
+			} catch (GeneralSecurityException e) {
+				this.mac.reset();
+				throw new IllegalStateException(e);
+			}
+
+			int tamanho = decodificar(token, fimPayload + 1, token.length(), this.recebida, 0);
+			if (tamanho != TAMANHO_ASSINATURA) {
+				return false;
+			}
+
+			int diferenca = 0;
+			for (int i = 0; i < TAMANHO_ASSINATURA; i++) {
+				diferenca |= this.calculada[i] ^ this.recebida[i];
+			}
+			return diferenca == 0;
+		}
+	}
+
+	/**
+	 * Leitor mínimo do JSON do payload: objeto plano com textos sem escape,
+	 * números e listas. Qualquer outra estrutura devolve null.
+	 */
+	private static final class LeitorPayload {
+
+		private final byte[] json;
+		private final int fim;
+		private int posicao;
+
+		private String login;
+		private String jti;
+		private Long idUsuario;
+		private long versao;
+		private long expiracao = -1;
+		private List<String> perfis;
+
+		private LeitorPayload(byte[] json, int fim) {
+			this.json = json;
+			this.fim = fim;
+		}
+
+		private ClaimsToken ler() {
+			this.pularEspacos();
+			if (!this.consumir('{')) {
+				return null;
+			}
+
+			this.pularEspacos();
+			if (this.consumir('}')) {
+				return null;
+			}
+
+			do {
+				this.pularEspacos();
+				int inicioChave = this.lerTexto();
+				if (inicioChave < 0) {
+					return null;
+				}
+				int fimChave = this.posicao - 1;
+
+				this.pularEspacos();
+				if (!this.consumir(':')) {
+					return null;
+				}
+
+				this.pularEspacos();
+				if (!this.lerValor(inicioChave, fimChave)) {
+					return null;
+				}
+
+				this.pularEspacos();
+			} while (this.consumir(','));
+
+			if (!this.consumir('}') || this.login == null || this.expiracao < 0) {
+				return null;
+			}
+
+			return new ClaimsToken(this.login, this.idUsuario, (int) this.versao, this.jti, this.expiracao * 1000,
+					this.perfis);
+		}
+
+		private boolean lerValor(int inicioChave, int fimChave) {
+			if (this.posicao >= this.fim) {
+				return false;
+			}
+
+			byte atual = this.json[this.posicao];
+
+			if (atual == '"') {
+				int inicio = this.lerTexto();
+				if (inicio < 0) {
+					return false;
+				}
+
+				if (this.isChave(inicioChave, fimChave, "sub")) {
+					this.login = this.criarTexto(inicio);
+				} else if (this.isChave(inicioChave, fimChave, "jti")) {
+					this.jti = this.criarTexto(inicio);
+				}
+				return true;
+			}
+
+			if (atual == '-' || (atual >= '0' && atual <= '9')) {
+				Long numero = this.lerNumero();
+				if (numero == null) {
+					return false;
+				}
+
+				if (this.isChave(inicioChave, fimChave, "exp")) {
+					this.expiracao = numero;
+				} else if (this.isChave(inicioChave, fimChave, "id")) {
+					this.idUsuario = numero;
+				} else if (this.isChave(inicioChave, fimChave, "ver")) {
+					this.versao = numero;
+				}
+				return true;
+			}
+
+			if (atual == '[') {
+				return this.lerLista(this.isChave(inicioChave, fimChave, "roles"));
+			}
+
+			return this.consumirLiteral("true") || this.consumirLiteral("false") || this.consumirLiteral("null");
+		}
+
+		private boolean lerLista(boolean isPerfis) {
+			this.posicao++;
+			List<String> valores = isPerfis ? new ArrayList<>() : null;
+
+			this.pularEspacos();
+			if (this.consumir(']')) {
+				if (isPerfis)
+					this.perfis = valores;
+				return true;
+			}
+
+			do {
+				this.pularEspacos();
+				if (this.posicao >= this.fim || this.json[this.posicao] != '"') {
+					return false;
+				}
+
+				int inicio = this.lerTexto();
+				if (inicio < 0) {
+					return false;
+				}
+
+				if (isPerfis)
+					valores.add(this.criarTexto(inicio));
+
+				this.pularEspacos();
+			} while (this.consumir(','));
+
+			if (!this.consumir(']')) {
+				return false;
+			}
+
+			if (isPerfis)
+				this.perfis = valores;
+			return true;
+		}
+
+		// Avança até o fim do texto e retorna o índice do primeiro caractere, ou -1
+		private int lerTexto() {
+			if (!this.consumir('"')) {
+				return -1;
+			}
+
+			int inicio = this.posicao;
+			while (this.posicao < this.fim) {
+				byte atual = this.json[this.posicao++];
+				if (atual == '"') {
+					return inicio;
+				}
+				if (atual == '\\') {
+					return -1;
+				}
+			}
+			return -1;
+		}
+
+		private String criarTexto(int inicio) {
+			return new String(this.json, inicio, this.posicao - 1 - inicio, StandardCharsets.UTF_8);
+		}
+
+		private Long lerNumero() {
+			boolean negativo = this.consumir('-');
+			long numero = 0;
+			int inicio = this.posicao;
+
+			while (this.posicao < this.fim && this.json[this.posicao] >= '0' && this.json[this.posicao] <= '9') {
+				if (this.posicao - inicio >= 18) {
+					return null;
+				}
+				numero = numero * 10 + (this.json[this.posicao++] - '0');
+			}
+
+			if (this.posicao == inicio || (this.posicao < this.fim && (this.json[this.posicao] == '.'
+					|| this.json[this.posicao] == 'e' || this.json[this.posicao] == 'E'))) {
+				return null;
+			}
+
+			return negativo ? -numero : numero;
+		}
+
+		private boolean isChave(int inicio, int fim, String nome) {
+			if (fim - inicio != nome.length()) {
+				return false;
+			}
+			for (int i = 0; i < nome.length(); i++) {
+				if (this.json[inicio + i] != nome.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean consumirLiteral(String literal) {
+			if (this.posicao + literal.length() > this.fim) {
+				return false;
+			}
+			for (int i = 0; i < literal.length(); i++) {
+				if (this.json[this.posicao + i] != literal.charAt(i)) {
+					return false;
+				}
+			}
+			this.posicao += literal.length();
+			return true;
+		}
+
+		private boolean consumir(char caractere) {
+			if (this.posicao < this.fim && this.json[this.posicao] == caractere) {
+				this.posicao++;
+				return true;
+			}
+			return false;
+		}
+
+		private void pularEspacos() {
+			while (this.posicao < this.fim && (this.json[this.posicao] == ' ' || this.json[this.posicao] == '\t'
+					|| this.json[this.posicao] == '\n' || this.json[this.posicao] == '\r')) {
+				this.posicao++;
+			}
+		}
+	}
+}
@@ -27,5 +27,31 @@ public class ExceptionsConstantes {
 	public static final String PROIBIDO_ALTERAR_O_PROPRIO_PERFIL = "Não é permitido alterar o próprio perfil";
 	
 	public static final String USUARIO_SEM_PERMISSAO = "Você não tem permissão para esta operação";
+	
+	public static final String LOGIN_SOBRECARREGADO = "Muitos logins em andamento, tente novamente em instantes";
+	
+	public static final String TENTATIVAS_LOGIN_EXCEDIDAS = "Muitas tentativas de login, tente novamente mais tarde";
+	
+	public static final String CHAVE_API_NAO_ENCONTRADA = "Chave de API não encontrada";
+	
+	public static final String TOKENS_NAO_INFORMADOS = "Nenhum token informado";
+	
+	public static final String LIMITE_TOKENS_EXCEDIDO = "Informe no máximo {0} tokens por requisição";
+	
+	public static final String LOTE_NAO_INFORMADO = "Nenhum item informado no lote";
+	
+	public static final String LIMITE_LOTE_EXCEDIDO = "Informe no máximo {0} itens por lote";
+	
+	public static final String LOTE_NAO_GRAVADO = "Falha do banco ao gravar os itens {0} a {1} do lote, nenhum item foi gravado";
+	
+	public static final String CURSOR_INVALIDO = "Cursor de paginação inválido";
+	
+	public static final String DISPONIBILIDADE_NAO_INFORMADA = "Informe o login ou o email para consultar a disponibilidade";
+	
+	public static final String VERSAO_NAO_INFORMADA = "Informe a versão do registro a ser alterado";
+	
+	public static final String FILTRO_NAO_INFORMADO = "Informe os ids, os logins ou a data de alteração dos registros";
+	
+	public static final String USUARIO_BLOQUEADO = "Usuário bloqueado temporariamente por excesso de tentativas";
 
 }
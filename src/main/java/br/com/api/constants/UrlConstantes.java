@@ -3,6 +3,9 @@ package br.com.api.constants;
 public class UrlConstantes {
 
 	public static final String USUARIOS = "/api/usuarios";
+	public static final String CHAVES_API = "/api/chaves";
 	public static final String PERFIS = "/admin/perfis";
+	public static final String EXPORTACAO = "/admin/exportacao";
+	public static final String INTROSPECCAO = "/admin/introspeccao";
 	public static final String ACESSO_LIBERADO = "/acesso";
 }
@@ -0,0 +1,45 @@
+package br.com.api.controllers;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.api.constants.UrlConstantes;
+import br.com.api.dtos.ChaveApiDTO;
+import br.com.api.services.ChaveApiService;
+import io.swagger.annotations.Api;
+
+@RestController
+@Api(value = "Chaves de API", description = "Endpoint das chaves de API dos clientes de serviço", tags = "Chaves de API")
+@RequestMapping(UrlConstantes.CHAVES_API)
+public class ChaveApiController {
+
+	@Autowired
+	private ChaveApiService service;
+
+	// Enviar a chave recebida no cabecalho X-Api-Key, no lugar do token
+	@PostMapping
+	public ChaveApiDTO emitir(@Valid @RequestBody ChaveApiDTO chaveApiDTO) {
+		return this.service.emitir(chaveApiDTO);
+	}
+
+	@GetMapping
+	public List<ChaveApiDTO> listar() {
+		return this.service.consultarTodos();
+	}
+
+	@DeleteMapping("/{id}")
+	public void revogar(@PathVariable Long id) {
+		this.service.revogar(id);
+	}
+
+}
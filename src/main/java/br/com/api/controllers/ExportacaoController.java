@@ -0,0 +1,33 @@
+package br.com.api.controllers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.api.constants.UrlConstantes;
+import br.com.api.services.UsuarioService;
+import io.swagger.annotations.Api;
+
+@RestController
+@Api(value = "Exportacao", description = "Endpoint das exportações para sincronização", tags = "Exportacao")
+@RequestMapping(UrlConstantes.EXPORTACAO)
+public class ExportacaoController {
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	// NDJSON escrito direto na resposta, um usuário por linha
+	@GetMapping(value = "/usuarios", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void exportarUsuarios(HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		this.usuarioService.exportarUsuariosAtivos(response.getOutputStream());
+	}
+}
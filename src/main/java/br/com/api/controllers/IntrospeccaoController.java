@@ -0,0 +1,84 @@
+package br.com.api.controllers;
+
+import static org.springframework.http.ResponseEntity.ok;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.api.configs.security.IndiceChaveApi;
+import br.com.api.configs.security.jwt.JwtTokenProvider;
+import br.com.api.configs.security.jwt.TokenIntrospectado;
+import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.constants.UrlConstantes;
+import br.com.api.dtos.IntrospeccaoDTO;
+import br.com.api.exceptions.ValidationException;
+import io.swagger.annotations.Api;
+
+// Fora do /acesso: apenas clientes autenticados como administrador, pelo token ou pela chave de API,
+// podem testar tokens e ler o login e as autoridades de cada um
+@RestController
+@Api(value = "Introspeccao", description = "Endpoint de verificação de tokens para os demais serviços", tags = "Introspeccao")
+@RequestMapping(UrlConstantes.INTROSPECCAO)
+public class IntrospeccaoController {
+
+	@Autowired
+	private JwtTokenProvider tokenProvider;
+
+	@Value("${security.jwt.introspeccao.maximo-tokens:100}")
+	private int maximoTokensIntrospeccao = 100;
+
+	// Tempo maximo que um resultado pode ficar no cache do cliente, mesmo com o token valido por mais tempo
+	@Value("${security.jwt.introspeccao.cache-segundos:300}")
+	private long segundosCacheIntrospeccao = 300;
+
+	// Verifica varios tokens de uma vez para o gateway e os demais servicos, na mesma ordem recebida.
+	// O resultado pode ser guardado ate a expiracao do token valido mais proximo de expirar, limitado
+	// para que uma revogacao chegue aos clientes, e apenas no cache privado de quem consultou
+	@PostMapping
+	public ResponseEntity<List<TokenIntrospectado>> introspectarTokens(@RequestBody IntrospeccaoDTO introspeccaoDTO) {
+		List<String> tokens = introspeccaoDTO.getTokens();
+
+		if (tokens == null || tokens.isEmpty()) {
+			throw new ValidationException(ExceptionsConstantes.TOKENS_NAO_INFORMADOS);
+		}
+		if (tokens.size() > maximoTokensIntrospeccao) {
+			throw new ValidationException(
+					MessageFormat.format(ExceptionsConstantes.LIMITE_TOKENS_EXCEDIDO, maximoTokensIntrospeccao));
+		}
+
+		Map<String, TokenIntrospectado> verificados = new HashMap<>();
+		List<TokenIntrospectado> resultados = new ArrayList<>(tokens.size());
+		long segundosCache = segundosCacheIntrospeccao;
+		long agora = System.currentTimeMillis();
+
+		for (String token : tokens) {
+			TokenIntrospectado resultado = token == null ? TokenIntrospectado.INVALIDO
+					: verificados.computeIfAbsent(token, tokenProvider::introspectar);
+			if (resultado.isValido()) {
+				segundosCache = Math.min(segundosCache,
+						TimeUnit.MILLISECONDS.toSeconds(Math.max(0, resultado.getExpiraEm() - agora)));
+			}
+			resultados.add(resultado);
+		}
+
+		CacheControl cacheControl = segundosCache > 0
+				? CacheControl.maxAge(segundosCache, TimeUnit.SECONDS).cachePrivate()
+				: CacheControl.noStore();
+		return ok().cacheControl(cacheControl).varyBy(HttpHeaders.AUTHORIZATION, IndiceChaveApi.CABECALHO)
+				.body(resultados);
+	}
+}
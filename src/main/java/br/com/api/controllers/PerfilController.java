@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import br.com.api.constants.UrlConstantes;
 import br.com.api.dtos.PerfilDTO;
+import br.com.api.dtos.PerfisLoteDTO;
+import br.com.api.dtos.ResultadoPerfisLoteDTO;
 import br.com.api.services.PerfilService;
 import io.swagger.annotations.Api;
 
@@ -32,6 +34,17 @@ public class PerfilController {
 		return this.service.alterarPerfil(perfil, true);
 	}
 	
+	// Mesmos perfis para vários usuários, pelo id ou login
+	@PostMapping("/lote/adicionar")
+	public ResultadoPerfisLoteDTO adicionarPerfisEmLote(@Valid @RequestBody PerfisLoteDTO perfisLote) {
+		return this.service.alterarPerfilLote(perfisLote, false);
+	}
+
+	@PostMapping("/lote/remover")
+	public ResultadoPerfisLoteDTO removerPerfisEmLote(@Valid @RequestBody PerfisLoteDTO perfisLote) {
+		return this.service.alterarPerfilLote(perfisLote, true);
+	}
+	
 	@GetMapping
 	public PerfilDTO listar() {
 		return this.service.listarPerfisAtivos();
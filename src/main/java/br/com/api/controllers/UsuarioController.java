@@ -5,13 +5,21 @@ import java.util.List;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import br.com.api.constants.UrlConstantes;
 import br.com.api.controllers.base.ControllerGenerico;
+import br.com.api.dtos.DisponibilidadeDTO;
+import br.com.api.dtos.FiltroUsuariosDTO;
+import br.com.api.dtos.ResultadoAtivacaoLoteDTO;
+import br.com.api.dtos.ResultadoLoteDTO;
 import br.com.api.dtos.UsuarioDTO;
 import br.com.api.services.UsuarioService;
 import br.com.api.utils.Utils;
@@ -31,11 +39,39 @@ public class UsuarioController extends ControllerGenerico<UsuarioDTO, Long>{
 		return service.salvarUsuario(usuarioDTO);
 	}
 
+	@Override
+	public UsuarioDTO atualizarParcial(@PathVariable Long id, @RequestBody UsuarioDTO usuarioDTO) {
+		usuarioDTO.setId(id);
+		return service.atualizarParcial(usuarioDTO);
+	}
+
 	@Override
 	public UsuarioDTO cadastrar(@Valid @RequestBody UsuarioDTO usuarioDTO) {		
 		return service.criarUsuario(usuarioDTO);
 	}
 
+	@Override
+	public List<ResultadoLoteDTO> salvarLote(@RequestBody List<UsuarioDTO> usuariosDTO) {
+		return service.salvarLote(usuariosDTO, Utils.getUsuarioLogado());
+	}
+
+	@GetMapping("/disponibilidade")
+	public DisponibilidadeDTO consultarDisponibilidade(@RequestParam(required = false) String login,
+			@RequestParam(required = false) String email) {
+		return service.consultarDisponibilidade(login, email);
+	}
+
+	// Exclusão lógica e restauração em massa pelos ids, logins ou data de alteração
+	@PostMapping("/lote/excluir")
+	public ResultadoAtivacaoLoteDTO excluirLote(@RequestBody FiltroUsuariosDTO filtro) {
+		return service.excluirUsuarios(filtro);
+	}
+
+	@PostMapping("/lote/restaurar")
+	public ResultadoAtivacaoLoteDTO restaurarLote(@RequestBody FiltroUsuariosDTO filtro) {
+		return service.restaurarUsuarios(filtro);
+	}
+
 	@Override
 	public UsuarioDTO consultar(@PathVariable Long id) {
 		return service.consultar(id);
@@ -47,7 +83,8 @@ public class UsuarioController extends ControllerGenerico<UsuarioDTO, Long>{
 	}
 
 	@Override
-	public List<UsuarioDTO> listar() {
-		return service.consultarTodos();
+	public ResponseEntity<List<UsuarioDTO>> listar(@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer tamanho, @RequestParam(defaultValue = "false") boolean total) {
+		return this.responderPagina(service.consultarPagina(cursor, tamanho, total));
 	}
 }
@@ -1,27 +1,43 @@
 package br.com.api.controllers.base;
 
+import static org.springframework.http.ResponseEntity.noContent;
+import static org.springframework.http.ResponseEntity.notFound;
 import static org.springframework.http.ResponseEntity.ok;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import br.com.api.configs.security.ControleTentativasLogin;
+import br.com.api.configs.security.ExecutorVerificacaoSenha;
+import br.com.api.configs.security.UserDetail;
+import br.com.api.configs.security.jwt.ChaveiroToken;
 import br.com.api.configs.security.jwt.JwtTokenProvider;
 import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.constants.UrlConstantes;
 import br.com.api.dtos.UsuarioDTO;
+import br.com.api.exceptions.AuthenticationJwtException;
 import br.com.api.models.Usuario;
-import br.com.api.services.UsuarioService;
+import br.com.api.services.SenhaService;
 import io.swagger.annotations.Api;
 
 @RestController
@@ -36,16 +52,72 @@ public class AuthController {
 	private JwtTokenProvider tokenProvider;
 
 	@Autowired
-	private UsuarioService usuarioService;
+	private ExecutorVerificacaoSenha executorSenha;
+
+	@Autowired
+	private SenhaService senhaService;
+
+	@Autowired
+	private ControleTentativasLogin controleTentativas;
+
+	@Autowired
+	private ChaveiroToken chaveiro;
+
+	// Menor que o intervalo de rotacao, para a chave seguinte chegar aos clientes antes de entrar em uso
+	@Value("${security.jwt.jwks.cache-segundos:3600}")
+	private long segundosCacheJwks = 3600;
 
+	// Os limites de tentativas sao verificados antes de qualquer acesso ao banco, e a verificacao
+	// da senha roda no pool dedicado, liberando a thread da requisicao
 	@PostMapping("/login")
 	@SuppressWarnings("rawtypes")
-	public ResponseEntity criarSessaoLogin(@RequestBody UsuarioDTO usuarioDTO) {
+	public CompletableFuture<ResponseEntity> criarSessaoLogin(@RequestBody UsuarioDTO usuarioDTO,
+			HttpServletRequest request) {
+		controleTentativas.verificarTentativa(usuarioDTO.getLogin(), request.getRemoteAddr());
+		return executorSenha.executar(() -> this.autenticar(usuarioDTO));
+	}
+
+	// Chaves publicas para que outros servicos verifiquem os tokens sem consultar esta API. Com o HS256
+	// nenhum token e assinado com elas, entao nao ha o que publicar
+	@GetMapping("/.well-known/jwks.json")
+	public ResponseEntity<Map<String, Object>> listarChavesPublicas(WebRequest request) {
+		if (!chaveiro.isAtivo()) {
+			return notFound().build();
+		}
+
+		String versao = chaveiro.getVersaoJwks();
+
+		if (request.checkNotModified(versao)) {
+			return null;
+		}
+
+		return ok().cacheControl(CacheControl.maxAge(segundosCacheJwks, TimeUnit.SECONDS).cachePublic())
+				.eTag(versao).body(chaveiro.getJwks());
+	}
+
+	@PostMapping("/logout")
+	@SuppressWarnings("rawtypes")
+	public ResponseEntity encerrarSessao(HttpServletRequest request) {
+		String token = tokenProvider.getToken(request);
+
+		if (token == null) {
+			throw new AuthenticationJwtException(ExceptionsConstantes.TOKEN_INVALIDO);
+		}
+
+		tokenProvider.revogar(token);
+		return noContent().build();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private ResponseEntity autenticar(UsuarioDTO usuarioDTO) {
 		try {
-			authManager.authenticate(
+			// O principal autenticado ja traz o usuario carregado na verificacao da senha
+			Authentication autenticacao = authManager.authenticate(
 					new UsernamePasswordAuthenticationToken(usuarioDTO.getLogin(), usuarioDTO.getSenha()));
+			controleTentativas.registrarSucesso(usuarioDTO.getLogin());
 
-			Usuario usuario = usuarioService.consultarPorLogin(usuarioDTO.getLogin());
+			Usuario usuario = ((UserDetail) autenticacao.getPrincipal()).getUsuario();
+			senhaService.atualizarHashSeNecessario(usuario, usuarioDTO.getSenha());
 			String token = tokenProvider.criarToken(usuario);
 
 			Map<Object, Object> response = new HashMap<>();
@@ -54,6 +126,7 @@ public class AuthController {
 			return ok(response);
 
 		} catch (AuthenticationException ex) {
+			controleTentativas.registrarFalha(usuarioDTO.getLogin());
 			throw new BadCredentialsException(ExceptionsConstantes.USUARIO_OU_SENHA_INCORRETO);
 		}
 	}
@@ -3,25 +3,54 @@ package br.com.api.controllers.base;
 import java.io.Serializable;
 import java.util.List;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 
+import br.com.api.dtos.PaginaDTO;
+import br.com.api.dtos.ResultadoLoteDTO;
+
 public abstract class ControllerGenerico<ENTIDADEDTO, ID extends Serializable> {
 
+	public static final String CABECALHO_PROXIMO_CURSOR = "X-Proximo-Cursor";
+
+	public static final String CABECALHO_TOTAL_APROXIMADO = "X-Total-Aproximado";
+
 	@PutMapping("/{id}")
 	public abstract ENTIDADEDTO atualizar(ID id, ENTIDADEDTO body);
 
+	// Apenas os campos informados, condicionado à versão enviada no corpo; 409 se o registro já foi alterado
+	@PatchMapping("/{id}")
+	public abstract ENTIDADEDTO atualizarParcial(ID id, ENTIDADEDTO body);
+
 	@PostMapping
 	public abstract ENTIDADEDTO cadastrar(ENTIDADEDTO body);
 
+	// Itens sem id são incluídos e os demais alterados, com o resultado de cada item na mesma posição
+	@PostMapping("/lote")
+	public abstract List<ResultadoLoteDTO> salvarLote(List<ENTIDADEDTO> body);
+
 	@GetMapping("/{id}")
 	public abstract ENTIDADEDTO consultar(ID id);
 
 	@DeleteMapping("/{id}")
 	public abstract void excluir(ID id);
 
+	// O corpo continua sendo a lista, o cursor da próxima página e o total vão nos cabeçalhos
 	@GetMapping
-	public abstract List<ENTIDADEDTO> listar();
+	public abstract ResponseEntity<List<ENTIDADEDTO>> listar(String cursor, Integer tamanho, boolean total);
+
+	protected ResponseEntity<List<ENTIDADEDTO>> responderPagina(PaginaDTO<ENTIDADEDTO> pagina) {
+		ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+		if (pagina.getProximoCursor() != null) {
+			resposta.header(CABECALHO_PROXIMO_CURSOR, pagina.getProximoCursor());
+		}
+		if (pagina.getTotalAproximado() != null) {
+			resposta.header(CABECALHO_TOTAL_APROXIMADO, String.valueOf(pagina.getTotalAproximado()));
+		}
+		return resposta.body(pagina.getItens());
+	}
 }
@@ -0,0 +1,49 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import br.com.api.constants.ValidacaoConstantes;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(Include.NON_NULL)
+@JsonPropertyOrder({ "id", "nome", "prefixo", "chave", "dataInclusao", "dataExpiracao" })
+public class ChaveApiDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long id;
+
+	@NotNull(message = ValidacaoConstantes.NOME_OBRIGATORIO)
+	@NotEmpty(message = ValidacaoConstantes.NOME_OBRIGATORIO)
+	@Size(min = 3, max = 20, message = ValidacaoConstantes.NOME_INVALIDO)
+	private String nome;
+
+	// Apenas na emissão, sem informar a chave não expira
+	@Positive(message = ValidacaoConstantes.DIAS_VALIDADE_INVALIDO)
+	private Integer diasValidade;
+
+	private String prefixo;
+
+	private String chave; // Enviada uma única vez, na emissão
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy HH:mm:ss.SSS")
+	private LocalDateTime dataInclusao;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy HH:mm:ss.SSS")
+	private LocalDateTime dataExpiracao;
+
+}
@@ -0,0 +1,24 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+
+// Disponibilidade do login e do email para o cadastro, só vem o que foi consultado
+@Getter
+@JsonInclude(Include.NON_NULL)
+public class DisponibilidadeDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Boolean loginDisponivel;
+	private final Boolean emailDisponivel;
+
+	public DisponibilidadeDTO(Boolean loginDisponivel, Boolean emailDisponivel) {
+		this.loginDisponivel = loginDisponivel;
+		this.emailDisponivel = emailDisponivel;
+	}
+}
@@ -0,0 +1,22 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Seleção da exclusão e da restauração em massa: os ids ou logins informados e, se houver, apenas os
+// registros sem alteração desde a data
+@Getter
+@Setter
+public class FiltroUsuariosDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<Long> ids;
+	private List<String> logins;
+	private LocalDateTime alteradosAte;
+
+}
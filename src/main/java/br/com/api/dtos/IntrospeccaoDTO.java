@@ -0,0 +1,16 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+public class IntrospeccaoDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<String> tokens;
+
+}
@@ -0,0 +1,24 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.Getter;
+
+// Uma página da listagem, o proximoCursor é null na última página
+@Getter
+public class PaginaDTO<ENTIDADEDTO> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<ENTIDADEDTO> itens;
+	private final String proximoCursor;
+	// Apenas quando solicitado, pode estar defasado em alguns segundos
+	private final Long totalAproximado;
+
+	public PaginaDTO(List<ENTIDADEDTO> itens, String proximoCursor, Long totalAproximado) {
+		this.itens = itens;
+		this.proximoCursor = proximoCursor;
+		this.totalAproximado = totalAproximado;
+	}
+}
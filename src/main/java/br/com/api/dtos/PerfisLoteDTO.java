@@ -0,0 +1,27 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+import br.com.api.constants.ValidacaoConstantes;
+import lombok.Getter;
+import lombok.Setter;
+
+// Os mesmos perfis adicionados ou removidos de todos os usuários informados, pelo id ou pelo login
+@Getter
+@Setter
+public class PerfisLoteDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<Long> idsUsuarios;
+	private List<String> logins;
+
+	@NotNull(message = ValidacaoConstantes.PERFIL_OBRIGATORIO)
+	@NotEmpty(message = ValidacaoConstantes.PERFIL_OBRIGATORIO)
+	private List<String> perfis;
+
+}
@@ -0,0 +1,23 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Getter;
+
+// Registros selecionados pelo filtro e efetivamente alterados pela exclusão ou restauração em massa
+@Getter
+@JsonPropertyOrder({ "selecionados", "alterados" })
+public class ResultadoAtivacaoLoteDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int selecionados;
+	private final int alterados;
+
+	public ResultadoAtivacaoLoteDTO(int selecionados, int alterados) {
+		this.selecionados = selecionados;
+		this.alterados = alterados;
+	}
+}
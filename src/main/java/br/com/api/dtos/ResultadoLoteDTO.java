@@ -0,0 +1,38 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Getter;
+
+// Resultado de um item do lote, na mesma posição em que foi enviado
+@Getter
+@JsonInclude(Include.NON_NULL)
+@JsonPropertyOrder({ "indice", "sucesso", "id", "erro" })
+public class ResultadoLoteDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int indice;
+	private final boolean sucesso;
+	private final Serializable id;
+	private final String erro;
+
+	private ResultadoLoteDTO(int indice, boolean sucesso, Serializable id, String erro) {
+		this.indice = indice;
+		this.sucesso = sucesso;
+		this.id = id;
+		this.erro = erro;
+	}
+
+	public static ResultadoLoteDTO sucesso(int indice, Serializable id) {
+		return new ResultadoLoteDTO(indice, true, id, null);
+	}
+
+	public static ResultadoLoteDTO falha(int indice, String erro) {
+		return new ResultadoLoteDTO(indice, false, null, erro);
+	}
+}
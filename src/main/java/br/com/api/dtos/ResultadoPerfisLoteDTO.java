@@ -0,0 +1,29 @@
+package br.com.api.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Getter;
+
+// Usuários que tiveram algum vínculo alterado, vínculos incluídos ou removidos e os ids ou logins sem usuário ativo
+@Getter
+@JsonInclude(Include.NON_EMPTY)
+@JsonPropertyOrder({ "usuariosAlterados", "vinculosAlterados", "naoEncontrados" })
+public class ResultadoPerfisLoteDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int usuariosAlterados;
+	private final int vinculosAlterados;
+	private final List<String> naoEncontrados;
+
+	public ResultadoPerfisLoteDTO(int usuariosAlterados, int vinculosAlterados, List<String> naoEncontrados) {
+		this.usuariosAlterados = usuariosAlterados;
+		this.vinculosAlterados = vinculosAlterados;
+		this.naoEncontrados = naoEncontrados;
+	}
+}
@@ -16,7 +16,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-@JsonPropertyOrder({ "id", "nome", "login", "email" })
+@JsonPropertyOrder({ "id", "nome", "login", "email", "versao" })
 @JsonIgnoreProperties(value = { "senha", "confirmacaoSenha", "novaSenha" }, allowSetters = true)
 public class UsuarioDTO implements Serializable {
 
@@ -52,6 +52,9 @@ public class UsuarioDTO implements Serializable {
 	// Apenas em caso de alteracao de senha
 	private String novaSenha;
 
+	// Obrigatória no PATCH, que só grava se o registro ainda estiver nesta versão
+	private Long versao;
+
 	/**
 	 * Construtores
 	 */
@@ -67,4 +70,13 @@ public class UsuarioDTO implements Serializable {
 		this.confirmacaoSenha = confirmacaoSenha;
 	}
 
+	// Usado pelas projeções de leitura do UsuarioRepository
+	public UsuarioDTO(Long id, String nome, String login, String email, Long versao) {
+		this.id = id;
+		this.nome = nome;
+		this.login = login;
+		this.email = email;
+		this.versao = versao;
+	}
+
 }
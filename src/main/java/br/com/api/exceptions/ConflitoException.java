@@ -0,0 +1,16 @@
+package br.com.api.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// O registro foi alterado por outra requisição depois da versão informada
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflitoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ConflitoException(String menssagem) {
+		super(menssagem);
+	}
+
+}
@@ -0,0 +1,21 @@
+package br.com.api.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@Getter
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SobrecargaException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long segundosRetentativa; // Enviado no cabecalho Retry-After
+
+	public SobrecargaException(String menssagem, long segundosRetentativa) {
+		super(menssagem);
+		this.segundosRetentativa = segundosRetentativa;
+	}
+
+}
@@ -0,0 +1,21 @@
+package br.com.api.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@Getter
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TentativasExcedidasException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long segundosRetentativa; // Enviado no cabecalho Retry-After
+
+	public TentativasExcedidasException(String menssagem, long segundosRetentativa) {
+		super(menssagem);
+		this.segundosRetentativa = segundosRetentativa;
+	}
+
+}
@@ -4,6 +4,7 @@ import org.apache.log4j.Logger;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,8 +12,12 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.exceptions.AuthenticationJwtException;
+import br.com.api.exceptions.ConflitoException;
 import br.com.api.exceptions.CustomException;
+import br.com.api.exceptions.SobrecargaException;
+import br.com.api.exceptions.TentativasExcedidasException;
 import br.com.api.exceptions.ValidationException;
 import br.com.api.utils.DataUtils;
 
@@ -66,6 +71,43 @@ public class ExceptionMessageCustom extends ResponseEntityExceptionHandler {
 		return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler(ConflitoException.class)
+	public final ResponseEntity<ExceptionResponse> conflitoException(ConflitoException ex, WebRequest request) {
+		logger.warn(ex.getMessage());
+		ExceptionResponse exceptionResponse = new ExceptionResponse(DataUtils.getStringComDataHoraAtual(),
+				ex.getMessage(), request.getDescription(false));
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.CONFLICT);
+	}
+
+	// A versão mudou entre a leitura e o flush do commit, fora do alcance do salvarEntidade
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public final ResponseEntity<ExceptionResponse> optimisticLockingException(ObjectOptimisticLockingFailureException ex,
+			WebRequest request) {
+		logger.warn(ex.getMessage());
+		ExceptionResponse exceptionResponse = new ExceptionResponse(DataUtils.getStringComDataHoraAtual(),
+				ExceptionsConstantes.ENTIDADE_JA_ALTERADA, request.getDescription(false));
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler(SobrecargaException.class)
+	public final ResponseEntity<ExceptionResponse> sobrecargaException(SobrecargaException ex, WebRequest request) {
+		logger.warn(ex.getMessage());
+		ExceptionResponse exceptionResponse = new ExceptionResponse(DataUtils.getStringComDataHoraAtual(),
+				ex.getMessage(), request.getDescription(false));
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosRetentativa())).body(exceptionResponse);
+	}
+
+	@ExceptionHandler(TentativasExcedidasException.class)
+	public final ResponseEntity<ExceptionResponse> tentativasExcedidasException(TentativasExcedidasException ex,
+			WebRequest request) {
+		logger.warn(ex.getMessage());
+		ExceptionResponse exceptionResponse = new ExceptionResponse(DataUtils.getStringComDataHoraAtual(),
+				ex.getMessage(), request.getDescription(false));
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosRetentativa())).body(exceptionResponse);
+	}
+
 	/**
 	 * Metodos Auxiliares
 	 */
@@ -0,0 +1,61 @@
+package br.com.api.models;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import org.hibernate.envers.Audited;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import br.com.api.models.base.Pojo;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+// Chave de acesso dos clientes de serviço, autentica como o titular e com os perfis dele
+@Entity
+@Audited
+@Table(name = "chaves_api")
+@Getter
+@Setter
+@EqualsAndHashCode(callSuper = false)
+public class ChaveApi extends Pojo<Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_chave_api")
+	@SequenceGenerator(name = "seq_chave_api", sequenceName = "seq_chave_api", allocationSize = 50)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "nome", nullable = false)
+	private String nome;
+
+	@Column(name = "prefixo", nullable = false)
+	private String prefixo; // Inicio da chave, apenas para identificá-la
+
+	@Column(name = "hash", nullable = false, unique = true, length = 64)
+	private String hash; // SHA-256 da chave, a chave em si nunca é gravada
+
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "id_titular", nullable = false)
+	@EqualsAndHashCode.Exclude
+	private Usuario titular;
+
+	@Column(name = "data_expiracao")
+	@DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy HH:mm:ss.SSS")
+	private LocalDateTime dataExpiracao; // Sem expiração quando nula
+}
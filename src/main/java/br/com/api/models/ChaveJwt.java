@@ -0,0 +1,55 @@
+package br.com.api.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Par de chaves RSA da assinatura RS256, compartilhado por todas as instâncias. Fora do Envers:
+// a chave privada não deve se espalhar pelas tabelas de auditoria
+@Entity
+@Table(name = "chaves_jwt")
+@Getter
+@Setter
+public class ChaveJwt implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "kid", length = 36)
+	private String kid;
+
+	@Column(name = "chave_privada", nullable = false, length = 8192)
+	private String chavePrivada; // PKCS#8 cifrado com AES-GCM, em Base64
+
+	@Column(name = "chave_publica", nullable = false, length = 2048)
+	private String chavePublica; // X.509 em Base64
+
+	@Column(name = "data_criacao", nullable = false)
+	private LocalDateTime dataCriacao;
+
+	@Column(name = "data_ativacao")
+	private LocalDateTime dataAtivacao; // Nula enquanto é a chave seguinte, apenas publicada
+
+	@Column(name = "data_aposentadoria")
+	private LocalDateTime dataAposentadoria; // Só verifica os tokens que já assinou
+
+	/**
+	 * Construtores
+	 */
+	public ChaveJwt() {
+	}
+
+	public ChaveJwt(String kid, String chavePrivada, String chavePublica, LocalDateTime dataCriacao) {
+		this.kid = kid;
+		this.chavePrivada = chavePrivada;
+		this.chavePublica = chavePublica;
+		this.dataCriacao = dataCriacao;
+	}
+}
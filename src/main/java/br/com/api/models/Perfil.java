@@ -1,18 +1,27 @@
 package br.com.api.models;
 
+import java.util.Set;
+
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import org.hibernate.envers.Audited;
 import org.springframework.security.core.GrantedAuthority;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import br.com.api.models.base.Pojo;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -20,7 +29,8 @@ import lombok.Setter;
 @Audited
 @Table(name = "perfis")
 @Getter @Setter
-@EqualsAndHashCode(callSuper = false)
+// Sem equals e hashCode sobrescritos: a referencia obtida do catalogo nao e carregada quando
+// o Envers audita a lista de perfis do usuario, e a sessao ja garante uma instancia por registro
 public class Perfil extends Pojo<Long> implements GrantedAuthority {
 
 	private static final long serialVersionUID = 1L;
@@ -28,15 +38,31 @@ public class Perfil extends Pojo<Long> implements GrantedAuthority {
 	public static final String PERFIL_USUARIO = "USUARIO";
 	public static final String PERFIL_ADMIN = "ADMINISTRADOR";
 
+	public static final String PERMISSAO_USUARIOS_EDITAR = "usuarios:editar";
+	public static final String PERMISSAO_USUARIOS_EXCLUIR = "usuarios:excluir";
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_perfil")
-	@SequenceGenerator(name = "seq_perfil", sequenceName = "seq_perfil", allocationSize = 1)
+	@SequenceGenerator(name = "seq_perfil", sequenceName = "seq_perfil", allocationSize = 50)
 	@Column(name = "id")
 	private Long id;
 
 	@Column(name = "nome", unique = true)
 	private String nome;
 
+	// Perfis cujas permissoes este perfil tambem recebe, resolvidos pelo CatalogoPermissoes
+	@JsonIgnore
+	@ManyToMany(fetch = FetchType.LAZY)
+	@JoinTable(name = "perfil_heranca", joinColumns = { @JoinColumn(name = "id_perfil") }, inverseJoinColumns = {
+			@JoinColumn(name = "id_perfil_herdado") })
+	private Set<Perfil> perfisHerdados;
+
+	@JsonIgnore
+	@ElementCollection(fetch = FetchType.LAZY)
+	@CollectionTable(name = "perfil_permissao", joinColumns = @JoinColumn(name = "id_perfil"))
+	@Column(name = "permissao")
+	private Set<String> permissoes;
+
 	/**
 	 * Construtores
 	 */
@@ -15,6 +15,8 @@ import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.envers.Audited;
 
 import br.com.api.models.base.Pojo;
@@ -24,6 +26,7 @@ import lombok.Setter;
 
 @Entity
 @Audited
+@DynamicUpdate // O UPDATE leva apenas as colunas alteradas
 @Table(name = "usuarios")
 @Getter
 @Setter
@@ -34,7 +37,7 @@ public class Usuario extends Pojo<Long> {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_usuario")
-	@SequenceGenerator(name = "seq_usuario", sequenceName = "seq_usuario", allocationSize = 1)
+	@SequenceGenerator(name = "seq_usuario", sequenceName = "seq_usuario", allocationSize = 50)
 	@Column(name = "id")
 	private Long id;
 
@@ -50,7 +53,14 @@ public class Usuario extends Pojo<Long> {
 	@Column(name = "senha", nullable = false)
 	private String senha;
 
-	@ManyToMany(fetch = FetchType.EAGER)
+	@Column(name = "versao_token")
+	private Integer versaoToken; // Incrementada para invalidar os tokens já emitidos
+
+	// Carregados apenas onde são usados, pelos entity graphs do UsuarioRepository. O BatchSize evita o N+1
+	// quando vários usuários já carregados acessam os perfis; fora do equals/hashCode para não inicializar a lista
+	@BatchSize(size = 50)
+	@EqualsAndHashCode.Exclude
+	@ManyToMany(fetch = FetchType.LAZY)
 	@JoinTable(name = "usuario_perfil", joinColumns = { @JoinColumn(name = "id_usuario") }, inverseJoinColumns = {
 			@JoinColumn(name = "id_perfil") })
 	private List<Perfil> listaPerfis;
@@ -8,6 +8,7 @@ import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 
 import org.hibernate.envers.Audited;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -43,6 +44,11 @@ public abstract class Pojo<ID extends Serializable> implements IEntidade<ID> {
 	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy HH:mm:ss.SSS")
 	private LocalDateTime dataInclusao;
 	
+	// Conferida no UPDATE ... WHERE versao = ?; o default preenche os registros gravados antes da coluna existir
+	@Version
+	@Column(name = "versao", columnDefinition = "bigint default 0")
+	private Long versao;
+	
 	@ManyToOne(fetch=FetchType.LAZY)
 	@JoinColumn(name = "usuario_id")
 	private Usuario usuario;
@@ -0,0 +1,33 @@
+package br.com.api.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import br.com.api.models.ChaveApi;
+
+public interface ChaveApiRepository extends JpaRepository<ChaveApi, Long> {
+
+	Optional<ChaveApi> findDistinctByIdAndAtivo(Long id, boolean ativo);
+	List<ChaveApi> findByTitularIdAndAtivo(Long idTitular, boolean ativo);
+
+	// Índice das chaves em uma única consulta: hash, expiração, id, login e um perfil do titular por linha
+	@Query("select c.hash, c.dataExpiracao, u.id, u.login, p.nome from ChaveApi c join c.titular u "
+			+ "left join u.listaPerfis p where c.ativo = true and u.ativo = true "
+			+ "and (c.dataExpiracao is null or c.dataExpiracao > :agora)")
+	List<Object[]> findChavesValidas(@Param("agora") LocalDateTime agora);
+
+	// Auditoria da revogação e restauração em lote, as colunas são conferidas no UsuarioRepositoryTest
+	@Modifying
+	@Query(value = "insert into chaves_api_aud (id, rev, revtype, ativo, data_alteracao, data_exclusao, data_inclusao,"
+			+ " versao, nome, prefixo, hash, id_titular, data_expiracao, usuario_id) select id, :rev, 1, ativo,"
+			+ " data_alteracao, data_exclusao, data_inclusao, versao, nome, prefixo, hash, id_titular, data_expiracao,"
+			+ " usuario_id from chaves_api where id in :ids", nativeQuery = true)
+	int auditarChaves(@Param("rev") int rev, @Param("ids") Collection<Long> ids);
+}
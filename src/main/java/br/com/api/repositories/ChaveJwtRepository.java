@@ -0,0 +1,30 @@
+package br.com.api.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import br.com.api.models.ChaveJwt;
+
+// As alterações são condicionais: entre várias instâncias, apenas uma efetiva cada passo da rotação
+public interface ChaveJwtRepository extends JpaRepository<ChaveJwt, String> {
+
+	List<ChaveJwt> findAllByOrderByDataCriacaoAscKidAsc();
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update ChaveJwt c set c.dataAtivacao = :agora where c.kid = :kid and c.dataAtivacao is null"
+			+ " and c.dataAposentadoria is null")
+	int ativar(@Param("kid") String kid, @Param("agora") LocalDateTime agora);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update ChaveJwt c set c.dataAposentadoria = :agora where c.kid = :kid and c.dataAposentadoria is null")
+	int aposentar(@Param("kid") String kid, @Param("agora") LocalDateTime agora);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from ChaveJwt c where c.dataAposentadoria < :limite")
+	int removerAposentadas(@Param("limite") LocalDateTime limite);
+}
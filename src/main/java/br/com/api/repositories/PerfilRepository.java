@@ -1,9 +1,14 @@
 package br.com.api.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import br.com.api.models.Perfil;
 
@@ -12,4 +17,15 @@ public interface PerfilRepository extends JpaRepository<Perfil, Long> {
 	Optional<Perfil> findDistinctByNomeAndAtivo(String nome, boolean ativo);
 	List<Perfil> findByAtivo(boolean ativo);
 
+	// Catalogo completo em uma unica consulta, usado para montar as permissoes
+	@EntityGraph(attributePaths = { "perfisHerdados", "permissoes" })
+	List<Perfil> findDistinctByAtivo(boolean ativo);
+
+	// Auditoria da exclusão e restauração em lote, as colunas são conferidas no UsuarioRepositoryTest
+	@Modifying
+	@Query(value = "insert into perfis_aud (id, rev, revtype, ativo, data_alteracao, data_exclusao, data_inclusao, versao,"
+			+ " nome, usuario_id) select id, :rev, 1, ativo, data_alteracao, data_exclusao, data_inclusao, versao, nome,"
+			+ " usuario_id from perfis where id in :ids", nativeQuery = true)
+	int auditarPerfis(@Param("rev") int rev, @Param("ids") Collection<Long> ids);
+
 }
@@ -1,18 +1,124 @@
 package br.com.api.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import br.com.api.dtos.UsuarioDTO;
 import br.com.api.models.Usuario;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
+	// Autenticação: o usuário vai para o cache com os perfis, que montam as permissões e o token
+	@EntityGraph(attributePaths = { "listaPerfis" })
 	Optional<Usuario> findDistinctByLoginAndAtivo(String login, boolean ativo);
+
+	// Consulta e alteração dos dados, sem os perfis
 	Optional<Usuario> findDistinctByIdAndAtivo(Long id, boolean ativo);
+
+	// Projeções de leitura: apenas as colunas do UsuarioDTO, sem entidades na sessão e sem o Dozer
+	@Query("select new br.com.api.dtos.UsuarioDTO(u.id, u.nome, u.login, u.email, u.versao) from Usuario u where u.id = :id and u.ativo = :ativo")
+	Optional<UsuarioDTO> findDTOByIdAndAtivo(@Param("id") Long id, @Param("ativo") boolean ativo);
+
+	@Query("select new br.com.api.dtos.UsuarioDTO(u.id, u.nome, u.login, u.email, u.versao) from Usuario u where u.ativo = :ativo order by u.id")
+	List<UsuarioDTO> findDTOByAtivo(@Param("ativo") boolean ativo);
+
+	@Query("select new br.com.api.dtos.UsuarioDTO(u.id, u.nome, u.login, u.email, u.versao) from Usuario u where u.ativo = true and u.id > :ultimoId order by u.id")
+	List<UsuarioDTO> findPaginaDTO(@Param("ultimoId") Long ultimoId, Pageable pagina);
+
+	// Alteração dos perfis do usuário
+	@EntityGraph(attributePaths = { "listaPerfis" })
+	Optional<Usuario> findDistinctComPerfisByIdAndAtivo(Long id, boolean ativo);
+
+	// Login e email de quem já usa algum dos dois, em uma consulta. O FlushMode COMMIT evita que o usuário em
+	// alteração seja gravado antes da hora só para a consulta
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE, value = "COMMIT"))
+	@Query("select u.login, u.email from Usuario u where u.id <> :id and (u.login = :login or u.email = :email)")
+	List<Object[]> findConflitosUnicidade(@Param("login") String login, @Param("email") String email,
+			@Param("id") Long id);
+
+	// Carga do IndiceLoginEmail, apenas as duas colunas de todos os usuários
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select u.login, u.email from Usuario u")
+	Stream<Object[]> streamLoginsEmails();
+
 	Long countByEmailAndIdNot(String email, Long id);
 	Long countByLoginAndIdNot(String login, Long id);
 	Long countByAtivo(boolean ativo);
 	List<Usuario> findByAtivo(boolean ativo);
+
+	// Id, login e email dos usuários que já usam algum dos logins ou emails, para validar a unicidade de um lote
+	@Query("select u.id, u.login, u.email from Usuario u where u.login in :logins or u.email in :emails")
+	List<Object[]> findLoginsEmailsCadastrados(@Param("logins") Collection<String> logins,
+			@Param("emails") Collection<String> emails);
+
+	// Uma linha por perfil, em ordem de id para agrupar os perfis do usuário; apenas colunas, sem entidades na sessão
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select u.id, u.nome, u.login, u.email, p.nome from Usuario u left join u.listaPerfis p where u.ativo = true order by u.id")
+	Stream<Object[]> streamUsuariosAtivosComPerfis();
+
+	// Alteração de perfis em massa: id, login e versão do token dos usuários ativos informados
+	@Query("select u.id, u.login, u.versaoToken from Usuario u where u.ativo = true and (u.id in :ids or u.login in :logins)")
+	List<Object[]> findAtivosPorIdsOuLogins(@Param("ids") Collection<Long> ids, @Param("logins") Collection<String> logins);
+
+	@Query("select u.id, u.login, u.versaoToken from Usuario u where u.id in :ids")
+	List<Object[]> findLoginsVersoesToken(@Param("ids") Collection<Long> ids);
+
+	@Query("select u.id, p.id from Usuario u join u.listaPerfis p where u.id in :ids and p.id in :perfis")
+	List<Object[]> findVinculosPerfis(@Param("ids") Collection<Long> ids, @Param("perfis") Collection<Long> perfis);
+
+	// Os vínculos e a auditoria do Envers (revtype 0 inclusão, 1 alteração, 2 remoção) gravados direto por conjunto.
+	// A auditoria vem antes de cada alteração, com o mesmo filtro, para registrar exatamente as linhas alteradas
+	@Modifying
+	@Query(value = "insert into usuario_perfil_aud (rev, revtype, id_usuario, id_perfil) select :rev, 0, u.id, p.id"
+			+ " from usuarios u cross join perfis p where u.id in :ids and p.id in :perfis and not exists"
+			+ " (select 1 from usuario_perfil up where up.id_usuario = u.id and up.id_perfil = p.id)", nativeQuery = true)
+	int auditarInclusaoPerfis(@Param("rev") int rev, @Param("ids") Collection<Long> ids,
+			@Param("perfis") Collection<Long> perfis);
+
+	@Modifying
+	@Query(value = "insert into usuario_perfil (id_usuario, id_perfil) select u.id, p.id"
+			+ " from usuarios u cross join perfis p where u.id in :ids and p.id in :perfis and not exists"
+			+ " (select 1 from usuario_perfil up where up.id_usuario = u.id and up.id_perfil = p.id)", nativeQuery = true)
+	int incluirPerfis(@Param("ids") Collection<Long> ids, @Param("perfis") Collection<Long> perfis);
+
+	@Modifying
+	@Query(value = "insert into usuario_perfil_aud (rev, revtype, id_usuario, id_perfil) select :rev, 2, id_usuario, id_perfil"
+			+ " from usuario_perfil where id_usuario in :ids and id_perfil in :perfis", nativeQuery = true)
+	int auditarRemocaoPerfis(@Param("rev") int rev, @Param("ids") Collection<Long> ids,
+			@Param("perfis") Collection<Long> perfis);
+
+	@Modifying
+	@Query(value = "delete from usuario_perfil where id_usuario in :ids and id_perfil in :perfis", nativeQuery = true)
+	int removerPerfis(@Param("ids") Collection<Long> ids, @Param("perfis") Collection<Long> perfis);
+
+	// Invalida os tokens emitidos com os perfis antigos, como o incrementarVersaoToken do UsuarioService
+	@Modifying
+	@Query("update Usuario u set u.versaoToken = coalesce(u.versaoToken, 0) + 1, u.versao = coalesce(u.versao, 0) + 1,"
+			+ " u.dataAlteracao = :dataAlteracao where u.id in :ids")
+	int incrementarVersaoToken(@Param("ids") Collection<Long> ids, @Param("dataAlteracao") LocalDateTime dataAlteracao);
+
+	// O estado gravado depois da alteração, como o Envers registraria a modificação da coleção.
+	// As colunas precisam acompanhar a usuarios_aud, conferidas no UsuarioRepositoryTest
+	@Modifying
+	@Query(value = "insert into usuarios_aud (id, rev, revtype, ativo, data_alteracao, data_exclusao, data_inclusao, versao,"
+			+ " email, login, nome, senha, versao_token, usuario_id) select id, :rev, 1, ativo, data_alteracao, data_exclusao,"
+			+ " data_inclusao, versao, email, login, nome, senha, versao_token, usuario_id from usuarios where id in :ids",
+			nativeQuery = true)
+	int auditarUsuarios(@Param("rev") int rev, @Param("ids") Collection<Long> ids);
+
+	@Query("select u.id, u.versaoToken from Usuario u where u.versaoToken > 0")
+	List<Object[]> findVersoesToken();
 }
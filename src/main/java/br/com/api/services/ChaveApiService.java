@@ -0,0 +1,144 @@
+package br.com.api.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import br.com.api.configs.security.IndiceChaveApi;
+import br.com.api.configs.security.UsuarioLogado;
+import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.dtos.ChaveApiDTO;
+import br.com.api.exceptions.CustomException;
+import br.com.api.models.ChaveApi;
+import br.com.api.repositories.ChaveApiRepository;
+import br.com.api.repositories.UsuarioRepository;
+import br.com.api.services.base.ServiceGenerico;
+import br.com.api.utils.Utils;
+
+@Service
+public class ChaveApiService extends ServiceGenerico<ChaveApi, ChaveApiDTO, Long, ChaveApiRepository> {
+
+	@Autowired
+	private ChaveApiRepository repository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private IndiceChaveApi indiceChaveApi;
+
+	@Override
+	public ChaveApiRepository getRepositorio() {
+		return repository;
+	}
+
+	// A chave é gerada aqui e devolvida apenas nesta resposta, no banco fica só o hash
+	public ChaveApiDTO emitir(ChaveApiDTO chaveApiDTO) {
+		UsuarioLogado usuarioLogado = Utils.getUsuarioLogado();
+		String chave = IndiceChaveApi.gerarChave();
+
+		ChaveApi chaveApi = this.converterDTOParaEntidade(chaveApiDTO);
+		chaveApi.setPrefixo(IndiceChaveApi.getPrefixoVisivel(chave));
+		chaveApi.setHash(IndiceChaveApi.gerarHash(chave));
+		chaveApi.setTitular(this.usuarioRepository.getOne(usuarioLogado.getId()));
+		if (chaveApiDTO.getDiasValidade() != null)
+			chaveApi.setDataExpiracao(LocalDateTime.now().plusDays(chaveApiDTO.getDiasValidade()));
+
+		chaveApi = this.salvar(chaveApi, usuarioLogado);
+
+		ChaveApiDTO emitida = this.converterEntidadeParaDTO(chaveApi);
+		emitida.setChave(chave);
+		return emitida;
+	}
+
+	@Override
+	public List<ChaveApiDTO> consultarTodos() {
+		return this.converterListaEntidadeParaListaDTO(
+				this.repository.findByTitularIdAndAtivo(Utils.getUsuarioLogado().getId(), true));
+	}
+
+	public void revogar(Long id) {
+		this.repository.findDistinctByIdAndAtivo(id, true)
+				.orElseThrow(() -> new EntityNotFoundException(ExceptionsConstantes.CHAVE_API_NAO_ENCONTRADA));
+		this.excluir(id, Utils.getUsuarioLogado());
+	}
+
+	// Apenas o titular ou o administrador revogam a chave
+	@Override
+	protected void validarExclusao(ChaveApi entidade) throws CustomException {
+		UsuarioLogado usuarioLogado = Utils.getUsuarioLogado();
+		if (!usuarioLogado.isAdministrador() && !entidade.getTitular().getId().equals(usuarioLogado.getId()))
+			throw new CustomException(ExceptionsConstantes.USUARIO_SEM_PERMISSAO);
+	}
+
+	// Emissões e revogações passam a valer apos o commit
+	@Override
+	protected void resolverPosPersistencia(ChaveApi entidade) throws CustomException {
+		this.executarAposCommit(this.indiceChaveApi::carregar);
+	}
+
+	// Em lote as chaves podem ser de titulares diferentes, apenas o administrador revoga ou restaura
+	@Override
+	protected void validarExclusaoLote(List<Long> ids) throws CustomException {
+		this.validarAdministradorLote();
+	}
+
+	@Override
+	protected void validarRestauracaoLote(List<Long> ids) throws CustomException {
+		this.validarAdministradorLote();
+	}
+
+	@Override
+	protected void resolverPosExclusaoLote(List<Long> ids) throws CustomException {
+		this.executarAposCommit(this.indiceChaveApi::carregar);
+	}
+
+	@Override
+	protected void resolverPosRestauracaoLote(List<Long> ids) throws CustomException {
+		this.executarAposCommit(this.indiceChaveApi::carregar);
+	}
+
+	@Override
+	protected void auditarLote(int revisao, List<Long> ids) throws CustomException {
+		this.repository.auditarChaves(revisao, ids);
+	}
+
+	private void validarAdministradorLote() {
+		if (!Utils.getUsuarioLogado().isAdministrador())
+			throw new CustomException(ExceptionsConstantes.USUARIO_SEM_PERMISSAO);
+	}
+
+	@Override
+	public ChaveApi converterDTOParaEntidade(ChaveApiDTO entidadeDTO) {
+		ChaveApi chaveApi = new ChaveApi();
+		chaveApi.setNome(entidadeDTO.getNome());
+		return chaveApi;
+	}
+
+	// O hash nunca sai da API
+	@Override
+	public ChaveApiDTO converterEntidadeParaDTO(ChaveApi entidade) {
+		ChaveApiDTO chaveApiDTO = new ChaveApiDTO();
+		chaveApiDTO.setId(entidade.getId());
+		chaveApiDTO.setNome(entidade.getNome());
+		chaveApiDTO.setPrefixo(entidade.getPrefixo());
+		chaveApiDTO.setDataInclusao(entidade.getDataInclusao());
+		chaveApiDTO.setDataExpiracao(entidade.getDataExpiracao());
+		return chaveApiDTO;
+	}
+
+	@Override
+	protected List<ChaveApiDTO> converterListaEntidadeParaListaDTO(List<ChaveApi> listaEntidades) throws CustomException {
+		List<ChaveApiDTO> chaves = new ArrayList<>(listaEntidades.size());
+		for (ChaveApi chaveApi : listaEntidades) {
+			chaves.add(this.converterEntidadeParaDTO(chaveApi));
+		}
+		return chaves;
+	}
+
+}
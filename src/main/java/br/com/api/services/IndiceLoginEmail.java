@@ -0,0 +1,140 @@
+package br.com.api.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.api.repositories.UsuarioRepository;
+import br.com.api.utils.FiltroBloom;
+
+/**
+ * Logins e emails já gravados, em filtros de Bloom. A resposta negativa é
+ * definitiva e dispensa o banco no cadastro e na verificação de
+ * disponibilidade; a positiva pode ser um falso positivo e sempre é confirmada
+ * no banco. Carregado na inicialização, recebe os novos valores após cada
+ * commit e é reconstruído periodicamente para descartar os emails trocados e
+ * acompanhar o crescimento da tabela.
+ */
+@Component
+public class IndiceLoginEmail {
+
+	private static Logger logger = Logger.getLogger(IndiceLoginEmail.class);
+
+	private static final double TAXA_FALSO_POSITIVO = 0.01;
+
+	private final UsuarioRepository repository;
+
+	private final TransactionTemplate transacaoLeitura;
+
+	private final int capacidadeMinima;
+
+	// Null até a primeira carga, enquanto isso toda consulta vai ao banco
+	private volatile Filtros filtros;
+
+	// Valores gravados durante uma reconstrução, que a consulta ao banco pode não ter visto
+	private final List<String[]> pendentes = new ArrayList<>();
+	private boolean reconstruindo;
+
+	private final Object recarga = new Object();
+
+	public IndiceLoginEmail(UsuarioRepository repository, PlatformTransactionManager transactionManager,
+			@Value("${usuario.unicidade.capacidade-minima:100000}") int capacidadeMinima) {
+		this.repository = repository;
+		this.transacaoLeitura = new TransactionTemplate(transactionManager);
+		this.transacaoLeitura.setReadOnly(true);
+		this.capacidadeMinima = capacidadeMinima;
+	}
+
+	@PostConstruct
+	public void carregar() {
+		synchronized (this.recarga) {
+			synchronized (this) {
+				this.reconstruindo = true;
+				this.pendentes.clear();
+			}
+
+			Filtros novosFiltros = this.transacaoLeitura.execute(status -> this.construir());
+
+			synchronized (this) {
+				for (String[] pendente : this.pendentes) {
+					novosFiltros.adicionar(pendente[0], pendente[1]);
+				}
+				this.filtros = novosFiltros;
+				this.reconstruindo = false;
+				this.pendentes.clear();
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${usuario.unicidade.intervalo-recarga:3600000}", initialDelayString = "${usuario.unicidade.intervalo-recarga:3600000}")
+	public void recarregar() {
+		this.carregar();
+	}
+
+	// Chamado após o commit, os dois valores podem ser null
+	public synchronized void adicionar(String login, String email) {
+		Filtros atuais = this.filtros;
+		if (atuais != null) {
+			atuais.adicionar(login, email);
+		}
+		if (this.reconstruindo) {
+			this.pendentes.add(new String[] { login, email });
+		}
+	}
+
+	// False significa que o login com certeza não está em uso
+	public boolean isLoginTalvezUsado(String login) {
+		Filtros atuais = this.filtros;
+		return login == null || atuais == null || atuais.logins.isTalvezPresente(login);
+	}
+
+	public boolean isEmailTalvezUsado(String email) {
+		Filtros atuais = this.filtros;
+		return email == null || atuais == null || atuais.emails.isTalvezPresente(email);
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	// Dimensionado pela quantidade atual com folga para o crescimento até a próxima reconstrução
+	private Filtros construir() {
+		long quantidade = this.repository.count();
+		int capacidade = (int) Math.min(Integer.MAX_VALUE, Math.max(this.capacidadeMinima, quantidade * 2));
+		Filtros novosFiltros = new Filtros(capacidade);
+
+		try (Stream<Object[]> linhas = this.repository.streamLoginsEmails()) {
+			linhas.forEach(linha -> novosFiltros.adicionar((String) linha[0], (String) linha[1]));
+		}
+
+		logger.info("Indice de logins e emails carregado com " + quantidade + " usuarios");
+		return novosFiltros;
+	}
+
+	private static final class Filtros {
+
+		private final FiltroBloom logins;
+		private final FiltroBloom emails;
+
+		private Filtros(int capacidade) {
+			this.logins = new FiltroBloom(capacidade, TAXA_FALSO_POSITIVO);
+			this.emails = new FiltroBloom(capacidade, TAXA_FALSO_POSITIVO);
+		}
+
+		private void adicionar(String login, String email) {
+			if (login != null)
+				this.logins.adicionar(login);
+			if (email != null)
+				this.emails.adicionar(email);
+		}
+	}
+}
@@ -2,15 +2,21 @@ package br.com.api.services;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.api.configs.security.CatalogoPermissoes;
 import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.dtos.AlteracaoPerfilsDTO;
 import br.com.api.dtos.PerfilDTO;
+import br.com.api.dtos.PerfisLoteDTO;
+import br.com.api.dtos.ResultadoPerfisLoteDTO;
 import br.com.api.exceptions.CustomException;
 import br.com.api.exceptions.ValidationException;
 import br.com.api.models.Perfil;
@@ -18,7 +24,6 @@ import br.com.api.repositories.PerfilRepository;
 import br.com.api.services.base.ServiceGenerico;
 import static br.com.api.utils.ValidacaoUtils.isIdValido;
 import static br.com.api.utils.ValidacaoUtils.isCampoStringValido;
-import static br.com.api.utils.ValidacaoUtils.isPerfilValido;
 
 @Service
 public class PerfilService extends ServiceGenerico<Perfil, PerfilDTO, Long, PerfilRepository> {
@@ -29,21 +34,39 @@ public class PerfilService extends ServiceGenerico<Perfil, PerfilDTO, Long, Perf
 	@Autowired
 	private UsuarioService usuarioService;
 
+	@Autowired
+	private CatalogoPermissoes catalogoPermissoes;
+
+	private volatile PerfilDTO listagemPerfis;
+
 	@Override
 	public PerfilRepository getRepositorio() {
 		return repository;
 	}
 
+	// Montada uma vez a cada carga do catálogo e compartilhada entre as requisições
 	public PerfilDTO listarPerfisAtivos() {
-		List<Perfil> perfis = this.repository.findByAtivo(true);
-		return converterListaPerfisParaPerfilDTO(perfis);
+		List<String> nomesPerfis = this.catalogoPermissoes.getNomesPerfis();
+		PerfilDTO listagem = this.listagemPerfis;
+
+		if (listagem == null || listagem.getPerfis() != nomesPerfis) {
+			listagem = new PerfilDTO(nomesPerfis);
+			this.listagemPerfis = listagem;
+		}
+		return listagem;
 	}
 
+	// Perfis já gravados vêm do catálogo como referência, sem consulta ao banco
 	public Perfil consultarOuCadastrarPerfilPeloNome(Perfil perfil) {
 		
-		if (!isPerfilValido(perfil.getNome())) {
+		if (!this.catalogoPermissoes.isPerfilConhecido(perfil.getNome())) {
 			throw new ValidationException(MessageFormat.format(ExceptionsConstantes.PERFIL_INVALIDO, perfil.getNome()));
 		}
+
+		Long idPerfil = this.catalogoPermissoes.getIdPerfil(perfil.getNome());
+		if (idPerfil != null) {
+			return this.repository.getOne(idPerfil);
+		}
 		
 		Optional<Perfil> perfilBanco = repository.findDistinctByNomeAndAtivo(perfil.getNome(), true);
 
@@ -53,6 +76,8 @@ public class PerfilService extends ServiceGenerico<Perfil, PerfilDTO, Long, Perf
 		return this.salvar(perfil, null);
 	}
 
+	// Uma transação para que as referências dos perfis sejam usadas na mesma sessão
+	@Transactional(rollbackFor = Exception.class)
 	public PerfilDTO alterarPerfil(PerfilDTO perfilDTO, boolean isRemocao) {
 		List<Perfil> perfis = new ArrayList<>();
 
@@ -70,6 +95,19 @@ public class PerfilService extends ServiceGenerico<Perfil, PerfilDTO, Long, Perf
 		return this.montarPerfilDTO(altPerfilDTO);
 	}
 
+	// Os mesmos perfis para vários usuários em uma operação por conjunto, sem carregar os usuários
+	@Transactional(rollbackFor = Exception.class)
+	public ResultadoPerfisLoteDTO alterarPerfilLote(PerfisLoteDTO perfisLoteDTO, boolean isRemocao) {
+		Set<Long> idsPerfis = new LinkedHashSet<>();
+
+		for (String nomePerfil : perfisLoteDTO.getPerfis()) {
+			idsPerfis.add(this.consultarOuCadastrarPerfilPeloNome(new Perfil(nomePerfil)).getId());
+		}
+
+		return this.usuarioService.alterarPerfisUsuarios(perfisLoteDTO.getIdsUsuarios(), perfisLoteDTO.getLogins(),
+				new ArrayList<>(idsPerfis), isRemocao);
+	}
+
 	private PerfilDTO montarPerfilDTO(AlteracaoPerfilsDTO altPerfilDTO) {
 		PerfilDTO perfilDTO = new PerfilDTO(altPerfilDTO.getIdUsuario(), altPerfilDTO.getLogin());
 		List<String> nomePerfis = new ArrayList<>();
@@ -83,20 +121,31 @@ public class PerfilService extends ServiceGenerico<Perfil, PerfilDTO, Long, Perf
 		return perfilDTO;
 	}
 
-	private void validarInformacoesUsuario(PerfilDTO perfilDTO) {
-		if (!(isIdValido(perfilDTO.getIdUsuario()) || isCampoStringValido(perfilDTO.getLogin()))) {
-			throw new ValidationException(ExceptionsConstantes.LOGIN_OU_ID_NAO_INFORMADO);
-		}
+	// Novos perfis, heranças e permissões passam a valer apos o commit
+	@Override
+	protected void resolverPosPersistencia(Perfil entidade) throws CustomException {
+		this.executarAposCommit(this.catalogoPermissoes::carregar);
 	}
 
-	private PerfilDTO converterListaPerfisParaPerfilDTO(List<Perfil> perfis) throws CustomException {
-		List<String> listaNomesPerfis = new ArrayList<>();
+	@Override
+	protected void resolverPosExclusaoLote(List<Long> ids) throws CustomException {
+		this.executarAposCommit(this.catalogoPermissoes::carregar);
+	}
 
-		for (Perfil perfil : perfis) {
-			listaNomesPerfis.add(perfil.getNome());
-		}
+	@Override
+	protected void resolverPosRestauracaoLote(List<Long> ids) throws CustomException {
+		this.executarAposCommit(this.catalogoPermissoes::carregar);
+	}
 
-		return new PerfilDTO(listaNomesPerfis);
+	@Override
+	protected void auditarLote(int revisao, List<Long> ids) throws CustomException {
+		this.repository.auditarPerfis(revisao, ids);
+	}
+
+	private void validarInformacoesUsuario(PerfilDTO perfilDTO) {
+		if (!(isIdValido(perfilDTO.getIdUsuario()) || isCampoStringValido(perfilDTO.getLogin()))) {
+			throw new ValidationException(ExceptionsConstantes.LOGIN_OU_ID_NAO_INFORMADO);
+		}
 	}
 
 	@Override
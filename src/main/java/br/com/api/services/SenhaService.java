@@ -0,0 +1,111 @@
+package br.com.api.services;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.api.configs.security.CacheUsuarioAutenticado;
+import br.com.api.models.Usuario;
+import br.com.api.repositories.UsuarioRepository;
+
+@Service
+public class SenhaService {
+
+	private static Logger logger = Logger.getLogger(SenhaService.class);
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private UsuarioRepository repository;
+
+	@Autowired
+	private CacheUsuarioAutenticado cacheUsuario;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	// Uma thread com fila curta, se estiver cheia a atualizacao fica para o proximo login
+	private final ThreadPoolExecutor executorAtualizacao = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(100), tarefa -> {
+				Thread thread = new Thread(tarefa, "atualizacao-hash-senha");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			});
+
+	private final Set<Long> atualizacoesPendentes = ConcurrentHashMap.newKeySet();
+
+	public String gerarHash(String senha) {
+		return this.passwordEncoder.encode(senha);
+	}
+
+	public boolean isSenhaCorreta(String senha, String hashSenha) {
+		return this.passwordEncoder.matches(senha, hashSenha);
+	}
+
+	// Chamado apos um login com sucesso, regrava o hash com o algoritmo e custo atuais sem atrasar a resposta
+	public void atualizarHashSeNecessario(Usuario usuario, String senha) {
+		String hashAtual = usuario.getSenha();
+		Long idUsuario = usuario.getId();
+		String login = usuario.getLogin();
+
+		if (hashAtual == null || !this.passwordEncoder.upgradeEncoding(hashAtual)
+				|| !this.atualizacoesPendentes.add(idUsuario)) {
+			return;
+		}
+
+		try {
+			this.executorAtualizacao.execute(() -> {
+				try {
+					if (this.regravarHash(idUsuario, hashAtual, this.gerarHash(senha)))
+						this.cacheUsuario.invalidar(login); // O usuario em cache ainda tem o hash antigo
+				} catch (ObjectOptimisticLockingFailureException e) {
+					// Alterado no meio tempo, o proximo login tenta de novo com o hash atual
+				} catch (Exception e) {
+					logger.error("", e);
+				} finally {
+					this.atualizacoesPendentes.remove(idUsuario);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.atualizacoesPendentes.remove(idUsuario);
+		}
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		this.executorAtualizacao.shutdown();
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	// Pela entidade, para passar pela versao, pela data de alteracao e pela auditoria do Envers. So regrava se o
+	// hash nao foi alterado desde o login; uma alteracao concorrente falha no commit pela versao
+	private boolean regravarHash(Long idUsuario, String hashAtual, String novoHash) {
+		return this.transactionTemplate.execute(status -> {
+			Usuario usuario = this.repository.findById(idUsuario).orElse(null);
+			if (usuario == null || !hashAtual.equals(usuario.getSenha())) {
+				return false;
+			}
+			usuario.setSenha(novoHash);
+			usuario.setDataAlteracao(LocalDateTime.now());
+			return true;
+		});
+	}
+}
@@ -1,21 +1,56 @@
 package br.com.api.services;
 
 import static br.com.api.models.Perfil.PERFIL_USUARIO;
-import static br.com.api.models.Perfil.PERFIL_ADMIN;
+import static br.com.api.models.Perfil.PERMISSAO_USUARIOS_EDITAR;
+import static br.com.api.models.Perfil.PERMISSAO_USUARIOS_EXCLUIR;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.criteria.Predicate;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.api.configs.security.CacheUsuarioAutenticado;
+import br.com.api.configs.security.IndiceChaveApi;
+import br.com.api.configs.security.UsuarioLogado;
+import br.com.api.configs.security.jwt.CacheTokenVerificado;
+import br.com.api.configs.security.jwt.RegistroVersaoToken;
 import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.constants.ValidacaoConstantes;
 import br.com.api.converter.DozerConverter;
 import br.com.api.dtos.AlteracaoPerfilsDTO;
+import br.com.api.dtos.DisponibilidadeDTO;
+import br.com.api.dtos.FiltroUsuariosDTO;
+import br.com.api.dtos.ResultadoAtivacaoLoteDTO;
+import br.com.api.dtos.ResultadoPerfisLoteDTO;
 import br.com.api.dtos.UsuarioDTO;
 import br.com.api.exceptions.CustomException;
 import br.com.api.exceptions.ValidationException;
@@ -35,38 +70,165 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 	@Autowired
 	private PerfilService perfilService;
 
+	@Autowired
+	private SenhaService senhaService;
+
+	@Autowired
+	private CacheTokenVerificado cacheToken;
+
+	@Autowired
+	private RegistroVersaoToken registroVersaoToken;
+
+	@Autowired
+	private CacheUsuarioAutenticado cacheUsuario;
+
+	@Autowired
+	private IndiceChaveApi indiceChaveApi;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private IndiceLoginEmail indiceLoginEmail;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Desligado, o cadastro sempre confirma a unicidade no banco
+	@Value("${usuario.unicidade.filtro-cadastro:true}")
+	private boolean filtroCadastro = true;
+
 	@Override
 	public UsuarioRepository getRepositorio() {
 		return repository;
 	}
 
+	// Uma transação para que as referências dos perfis sejam usadas na mesma sessão
+	@Transactional(rollbackFor = Exception.class)
 	public UsuarioDTO criarUsuario(UsuarioDTO usuarioDTO) {
 		Usuario usuario = converterDTOParaEntidade(usuarioDTO);
 		usuario = this.salvar(usuario, null);
+		try {
+			this.repository.flush(); // O INSERT sai aqui, dentro do tratamento da violação de unicidade
+		} catch (DataIntegrityViolationException e) {
+			throw this.getErroUnicidadeCadastro(usuario.getLogin(), usuario.getEmail(), e);
+		}
 		return converterEntidadeParaDTO(usuario);
 	}
 
+	@Transactional(rollbackFor = Exception.class)
 	public UsuarioDTO salvarUsuario(UsuarioDTO usuarioDTO) {
+		return this.alterarUsuario(usuarioDTO, false);
+	}
+
+	// PATCH: uma única leitura do usuário e um UPDATE só das colunas alteradas, condicionado à versão
+	// informada. Se outra requisição gravou antes, a resposta é 409 e nada é alterado
+	@Transactional(rollbackFor = Exception.class)
+	public UsuarioDTO atualizarParcial(UsuarioDTO usuarioDTO) {
+		return this.alterarUsuario(usuarioDTO, true);
+	}
+
+	private UsuarioDTO alterarUsuario(UsuarioDTO usuarioDTO, boolean condicionadoVersao) {
 		Usuario usuario = converterDTOParaEntidade(usuarioDTO);
-		if (ValidacaoUtils.isUsuarioValido(Utils.getUsuarioLogado())) // Adicionado apenas para os cenários de testes
-			this.validarPerfilUsuarioLogado(usuario, Utils.getUsuarioLogado());
+		this.validarAlteracao(usuario);
 		usuario = this.validarCamposAlterados(usuario);
+		if (condicionadoVersao)
+			this.validarVersao(usuario, usuarioDTO.getVersao());
+
 		usuario = this.salvar(usuario, Utils.getUsuarioLogado());
+		this.repository.flush(); // O UPDATE sai agora para que a resposta já traga a nova versão
 		return converterEntidadeParaDTO(usuario);
 	}
 
 	@Override
 	public List<UsuarioDTO> consultarTodos() {
-		return this.converterListaEntidadeParaListaDTO(this.repository.findByAtivo(true));
+		return this.repository.findDTOByAtivo(true);
 	}
 
-	public UsuarioDTO consultar(Long id) {
-		Optional<Usuario> usuario = this.repository.findDistinctByIdAndAtivo(id, true);
-		if (usuario.isPresent() && usuario.get().getId() != null) {
-			return converterEntidadeParaDTO(usuario.get());
+	// Uma linha JSON por usuário ativo, escrita enquanto o cursor do banco é lido. Só colunas são consultadas,
+	// nenhuma entidade fica na sessão, então a memória não depende da quantidade de usuários
+	@Transactional(readOnly = true)
+	public long exportarUsuariosAtivos(OutputStream saida) throws IOException {
+		long quantidade = 0;
+
+		try (Stream<Object[]> linhas = this.repository.streamUsuariosAtivosComPerfis();
+				JsonGenerator gerador = this.objectMapper.getFactory().createGenerator(saida)) {
+			gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			gerador.setRootValueSeparator(null);
+
+			Iterator<Object[]> iterator = linhas.iterator();
+			Object[] linha = iterator.hasNext() ? iterator.next() : null;
+
+			while (linha != null) {
+				Long idUsuario = (Long) linha[0];
+				gerador.writeStartObject();
+				gerador.writeNumberField("id", idUsuario);
+				gerador.writeStringField("nome", (String) linha[1]);
+				gerador.writeStringField("login", (String) linha[2]);
+				gerador.writeStringField("email", (String) linha[3]);
+				gerador.writeArrayFieldStart("perfis");
+
+				// As linhas seguintes com o mesmo id trazem os demais perfis do usuário
+				do {
+					if (linha[4] != null)
+						gerador.writeString((String) linha[4]);
+					linha = iterator.hasNext() ? iterator.next() : null;
+				} while (linha != null && idUsuario.equals(linha[0]));
+
+				gerador.writeEndArray();
+				gerador.writeEndObject();
+				gerador.writeRaw('\n');
+				quantidade++;
+			}
+		}
+
+		return quantidade;
+	}
+
+	// Para a validação do formulário de cadastro: o valor que o índice garante livre não chega ao banco,
+	// os demais são confirmados em uma única consulta
+	@Transactional(readOnly = true)
+	public DisponibilidadeDTO consultarDisponibilidade(String login, String email) {
+		String loginConsultado = ValidacaoUtils.isCampoStringValido(login) ? login : null;
+		String emailConsultado = ValidacaoUtils.isCampoStringValido(email) ? email : null;
+		if (loginConsultado == null && emailConsultado == null) {
+			throw new ValidationException(ExceptionsConstantes.DISPONIBILIDADE_NAO_INFORMADA);
+		}
+
+		String loginDuvidoso = this.indiceLoginEmail.isLoginTalvezUsado(loginConsultado) ? loginConsultado : null;
+		String emailDuvidoso = this.indiceLoginEmail.isEmailTalvezUsado(emailConsultado) ? emailConsultado : null;
+
+		boolean loginUsado = false;
+		boolean emailUsado = false;
+		if (loginDuvidoso != null || emailDuvidoso != null) {
+			for (Object[] conflito : this.repository.findConflitosUnicidade(loginDuvidoso, emailDuvidoso, 0l)) {
+				loginUsado |= loginDuvidoso != null && loginDuvidoso.equals(conflito[0]);
+				emailUsado |= emailDuvidoso != null && emailDuvidoso.equals(conflito[1]);
+			}
 		}
 
-		throw new EntityNotFoundException(ExceptionsConstantes.USUARIO_NAO_ENCONTRADO);
+		return new DisponibilidadeDTO(loginConsultado == null ? null : !loginUsado,
+				emailConsultado == null ? null : !emailUsado);
+	}
+
+	public UsuarioDTO consultar(Long id) {
+		return this.consultarDTOPorId(id)
+				.orElseThrow(() -> new EntityNotFoundException(ExceptionsConstantes.USUARIO_NAO_ENCONTRADO));
+	}
+
+	@Override
+	protected Optional<UsuarioDTO> consultarProjecaoPorId(Long id) {
+		return this.repository.findDTOByIdAndAtivo(id, true);
+	}
+
+	@Override
+	protected List<UsuarioDTO> consultarPaginaProjecao(Long ultimoId, int limite) {
+		return this.repository.findPaginaDTO(ultimoId == null ? 0l : ultimoId, PageRequest.of(0, limite));
+	}
+
+	@Override
+	protected Long getIdDTO(UsuarioDTO entidadeDTO) {
+		return entidadeDTO.getId();
 	}
 
 	public Usuario consultarPorLogin(String login) {
@@ -78,18 +240,110 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 		throw new EntityNotFoundException(ExceptionsConstantes.LOGIN_INVALIDO);
 	}
 
+	// Também chamado pelo salvarLote, antes de carregar o usuário alterado
+	@Override
+	protected void validarAlteracao(Usuario entidade) throws CustomException {
+		if (ValidacaoUtils.isUsuarioValido(Utils.getUsuarioLogado())) // Adicionado apenas para os cenários de testes
+			this.validarPerfilUsuarioLogado(entidade, Utils.getUsuarioLogado(), PERMISSAO_USUARIOS_EDITAR);
+	}
+
 	@Override
 	protected void validarExclusao(Usuario entidade) throws CustomException {
-		if (ValidacaoUtils.isUsuarioValido(entidade.getUsuario())) // Adicionado apenas para os cenários de testes
-			this.validarPerfilUsuarioLogado(entidade, entidade.getUsuario());
+		if (ValidacaoUtils.isUsuarioValido(Utils.getUsuarioLogado())) // Adicionado apenas para os cenários de testes
+			this.validarPerfilUsuarioLogado(entidade, Utils.getUsuarioLogado(), PERMISSAO_USUARIOS_EXCLUIR);
+	}
+
+	@Override
+	protected void resolverPreExclusao(Usuario entidade) throws CustomException {
+		this.incrementarVersaoToken(entidade);
+	}
+
+	// Desligamento de muitas contas de uma vez, um UPDATE por bloco de ids
+	@Transactional(rollbackFor = Exception.class)
+	public ResultadoAtivacaoLoteDTO excluirUsuarios(FiltroUsuariosDTO filtro) {
+		return this.excluirLote(this.montarFiltro(filtro), Utils.getUsuarioLogado());
+	}
+
+	@Transactional(rollbackFor = Exception.class)
+	public ResultadoAtivacaoLoteDTO restaurarUsuarios(FiltroUsuariosDTO filtro) {
+		return this.restaurarLote(this.montarFiltro(filtro), Utils.getUsuarioLogado());
+	}
+
+	@Override
+	protected void validarExclusaoLote(List<Long> ids) throws CustomException {
+		this.validarPermissaoLote(PERMISSAO_USUARIOS_EXCLUIR);
+	}
+
+	@Override
+	protected void validarRestauracaoLote(List<Long> ids) throws CustomException {
+		this.validarPermissaoLote(PERMISSAO_USUARIOS_EXCLUIR);
+	}
+
+	// Como na exclusão individual, os tokens já emitidos deixam de valer
+	@Override
+	protected void resolverPosExclusaoLote(List<Long> ids) throws CustomException {
+		this.invalidarAutenticacoesLote(ids);
+	}
+
+	// A restauração também exige um novo login, e descarta o usuário inexistente guardado no cache
+	@Override
+	protected void resolverPosRestauracaoLote(List<Long> ids) throws CustomException {
+		this.invalidarAutenticacoesLote(ids);
+	}
+
+	@Override
+	protected void auditarLote(int revisao, List<Long> ids) throws CustomException {
+		this.repository.auditarUsuarios(revisao, ids);
+	}
+
+	private void invalidarAutenticacoesLote(List<Long> ids) {
+		List<Object[]> usuarios = this.repository.findLoginsVersoesToken(ids);
+		this.repository.incrementarVersaoToken(ids, LocalDateTime.now());
+		this.invalidarAutenticacoes(usuarios);
+	}
+
+	private void validarPermissaoLote(String permissao) {
+		UsuarioLogado usuarioLogado = Utils.getUsuarioLogado();
+		if (ValidacaoUtils.isUsuarioValido(usuarioLogado) && !usuarioLogado.possui(permissao)) // Adicionado apenas para os cenários de testes
+			throw new CustomException(ExceptionsConstantes.USUARIO_SEM_PERMISSAO);
+	}
+
+	// Os ids ou logins informados, limitados ao tamanho do lote, e a data de alteração; sem nenhum critério
+	// a operação alcançaria todos os usuários, então é recusada
+	private Specification<Usuario> montarFiltro(FiltroUsuariosDTO filtro) {
+		List<Long> ids = filtro.getIds() == null ? Collections.emptyList() : filtro.getIds();
+		List<String> logins = filtro.getLogins() == null ? Collections.emptyList() : filtro.getLogins();
+		LocalDateTime alteradosAte = filtro.getAlteradosAte();
+
+		if (ids.isEmpty() && logins.isEmpty() && alteradosAte == null) {
+			throw new ValidationException(ExceptionsConstantes.FILTRO_NAO_INFORMADO);
+		}
+		if (!ids.isEmpty() || !logins.isEmpty()) {
+			this.validarTamanhoLote(ids.size() + logins.size());
+		}
+
+		return (raiz, consulta, construtor) -> {
+			List<Predicate> condicoes = new ArrayList<>();
+			if (!ids.isEmpty() || !logins.isEmpty()) {
+				List<Predicate> identificacoes = new ArrayList<>();
+				if (!ids.isEmpty())
+					identificacoes.add(raiz.get("id").in(ids));
+				if (!logins.isEmpty())
+					identificacoes.add(raiz.get("login").in(logins));
+				condicoes.add(construtor.or(identificacoes.toArray(new Predicate[0])));
+			}
+			if (alteradosAte != null)
+				condicoes.add(construtor.lessThanOrEqualTo(raiz.get("dataAlteracao"), alteradosAte));
+			return construtor.and(condicoes.toArray(new Predicate[0]));
+		};
 	}
 
 	public AlteracaoPerfilsDTO alterarPerfisUsuario(AlteracaoPerfilsDTO altPerfilDTO) {
 		Usuario usuario;
 
 		if (ValidacaoUtils.isIdValido(altPerfilDTO.getIdUsuario())) {
-			Optional<Usuario> usuarioBanco = this.repository.findDistinctByIdAndAtivo(altPerfilDTO.getIdUsuario(),
-					true);
+			Optional<Usuario> usuarioBanco = this.repository
+					.findDistinctComPerfisByIdAndAtivo(altPerfilDTO.getIdUsuario(), true);
 
 			if (!usuarioBanco.isPresent())
 				throw new EntityNotFoundException(ExceptionsConstantes.USUARIO_NAO_ENCONTRADO);
@@ -100,8 +354,9 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 			usuario = this.consultarPorLogin(altPerfilDTO.getLogin());
 
 		
-		if (ValidacaoUtils.isUsuarioValido(Utils.getUsuarioLogado())) { // Adicionado apenas para os cenários de testes
-			if (usuario.getId().equals(Utils.getUsuarioLogado().getId()))
+		UsuarioLogado usuarioLogado = Utils.getUsuarioLogado();
+		if (ValidacaoUtils.isUsuarioValido(usuarioLogado)) { // Adicionado apenas para os cenários de testes
+			if (usuario.getId().equals(usuarioLogado.getId()))
 				throw new CustomException(ExceptionsConstantes.PROIBIDO_ALTERAR_O_PROPRIO_PERFIL);
 		}
 
@@ -110,6 +365,7 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 		else
 			this.adicionarPerfis(usuario, altPerfilDTO.getPerfis());
 
+		this.incrementarVersaoToken(usuario);
 		usuario = this.salvarEntidade(usuario);
 
 		altPerfilDTO.setIdUsuario(usuario.getId());
@@ -119,9 +375,87 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 		return altPerfilDTO;
 	}
 
+	// Os mesmos perfis para vários usuários, sem carregar nenhum deles: o usuario_perfil muda por INSERT ... SELECT
+	// e DELETE por bloco de ids, só nos vínculos que ainda não estão no estado pedido, e a auditoria do Envers é
+	// gravada pelos mesmos comandos na revisão da transação
+	@Transactional(rollbackFor = Exception.class)
+	public ResultadoPerfisLoteDTO alterarPerfisUsuarios(List<Long> idsUsuarios, List<String> logins, List<Long> idsPerfis,
+			boolean remocao) {
+		Set<Long> idsInformados = idsUsuarios == null ? Collections.emptySet() : new LinkedHashSet<>(idsUsuarios);
+		Set<String> loginsInformados = logins == null ? Collections.emptySet() : new LinkedHashSet<>(logins);
+		this.validarTamanhoLote(idsInformados.size() + loginsInformados.size());
+
+		Map<Long, Object[]> usuarios = new LinkedHashMap<>();
+		for (List<Long> bloco : dividirEmBlocos(new ArrayList<>(idsInformados))) {
+			this.repository.findAtivosPorIdsOuLogins(bloco, Collections.singleton(""))
+					.forEach(usuario -> usuarios.put((Long) usuario[0], usuario));
+		}
+		for (List<String> bloco : dividirEmBlocos(new ArrayList<>(loginsInformados))) {
+			this.repository.findAtivosPorIdsOuLogins(Collections.singleton(0l), bloco)
+					.forEach(usuario -> usuarios.put((Long) usuario[0], usuario));
+		}
+
+		UsuarioLogado usuarioLogado = Utils.getUsuarioLogado();
+		if (ValidacaoUtils.isUsuarioValido(usuarioLogado) && usuarios.containsKey(usuarioLogado.getId()))
+			throw new CustomException(ExceptionsConstantes.PROIBIDO_ALTERAR_O_PROPRIO_PERFIL);
+
+		// Os perfis novos vão para o banco antes dos comandos que os referenciam
+		this.repository.flush();
+
+		Integer revisao = null;
+		List<Long> alterados = new ArrayList<>();
+		int vinculosAlterados = 0;
+		for (List<Long> bloco : dividirEmBlocos(new ArrayList<>(usuarios.keySet()))) {
+			List<Long> alteradosBloco = this.getUsuariosComVinculosAlterados(bloco, idsPerfis, remocao);
+			if (alteradosBloco.isEmpty())
+				continue;
+
+			if (revisao == null)
+				revisao = this.getRevisaoAuditoria();
+
+			if (remocao) {
+				this.repository.auditarRemocaoPerfis(revisao, alteradosBloco, idsPerfis);
+				vinculosAlterados += this.repository.removerPerfis(alteradosBloco, idsPerfis);
+			} else {
+				this.repository.auditarInclusaoPerfis(revisao, alteradosBloco, idsPerfis);
+				vinculosAlterados += this.repository.incluirPerfis(alteradosBloco, idsPerfis);
+			}
+			this.repository.incrementarVersaoToken(alteradosBloco, LocalDateTime.now());
+			this.repository.auditarUsuarios(revisao, alteradosBloco);
+			alterados.addAll(alteradosBloco);
+		}
+
+		this.invalidarAutenticacoes(alterados.stream().map(usuarios::get).collect(Collectors.toList()));
+
+		List<String> naoEncontrados = new ArrayList<>();
+		Set<String> loginsEncontrados = new HashSet<>();
+		usuarios.values().forEach(usuario -> loginsEncontrados.add((String) usuario[1]));
+		idsInformados.stream().filter(id -> !usuarios.containsKey(id)).map(String::valueOf).forEach(naoEncontrados::add);
+		loginsInformados.stream().filter(login -> !loginsEncontrados.contains(login)).forEach(naoEncontrados::add);
+
+		return new ResultadoPerfisLoteDTO(alterados.size(), vinculosAlterados, naoEncontrados);
+	}
+
+	// Na inclusão, quem ainda não tem algum dos perfis; na remoção, quem tem algum deles
+	private List<Long> getUsuariosComVinculosAlterados(List<Long> idsUsuarios, List<Long> idsPerfis, boolean remocao) {
+		Map<Long, Integer> vinculosPorUsuario = new HashMap<>();
+		for (Object[] vinculo : this.repository.findVinculosPerfis(idsUsuarios, idsPerfis)) {
+			vinculosPorUsuario.merge((Long) vinculo[0], 1, Integer::sum);
+		}
+
+		List<Long> alterados = new ArrayList<>();
+		for (Long idUsuario : idsUsuarios) {
+			int vinculos = vinculosPorUsuario.getOrDefault(idUsuario, 0);
+			if (remocao ? vinculos > 0 : vinculos < idsPerfis.size())
+				alterados.add(idUsuario);
+		}
+		return alterados;
+	}
+
+	// Compara pelo id, os perfis recebidos podem ser referências ainda não carregadas
 	private void adicionarPerfis(Usuario usuario, List<Perfil> perfis) {
 		for (Perfil perfil : perfis) {
-			if (!usuario.getListaPerfis().contains(perfil)) {
+			if (!this.possuiPerfil(usuario, perfil)) {
 				usuario.getListaPerfis().add(perfil);
 			}
 		}
@@ -129,15 +463,77 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 
 	private void removerPerfis(Usuario usuario, List<Perfil> perfis) {
 		for (Perfil perfil : perfis) {
-			if (usuario.getListaPerfis().contains(perfil)) {
-				usuario.getListaPerfis().remove(perfil);
-			}
+			usuario.getListaPerfis().removeIf(perfilUsuario -> perfilUsuario.getId().equals(perfil.getId()));
+		}
+	}
+
+	private boolean possuiPerfil(Usuario usuario, Perfil perfil) {
+		for (Perfil perfilUsuario : usuario.getListaPerfis()) {
+			if (perfilUsuario.getId().equals(perfil.getId()))
+				return true;
 		}
+		return false;
 	}
 
+	// Os perfis só mudam pelo alterarPerfisUsuario, na alteração dos dados a lista nem é carregada
 	@Override
 	protected void resolverPreDependencias(Usuario entidade) throws CustomException {
-		this.vincularPerfisAoUsuario(entidade);
+		if (entidade.getId() == null)
+			this.vincularPerfisAoUsuario(entidade);
+	}
+
+	// Toda gravacao ou exclusao do usuario passa por aqui, inclusive o cadastro que pode ter ficado no cache negativo
+	@Override
+	protected void resolverPosPersistencia(Usuario entidade) throws CustomException {
+		this.invalidarAutenticacoes(entidade);
+
+		String login = entidade.getLogin();
+		String email = entidade.getEmail();
+		this.executarAposCommit(() -> this.indiceLoginEmail.adicionar(login, email));
+	}
+
+	// Invalida todos os tokens ja emitidos para o usuario, aplicado na memoria por invalidarAutenticacoes
+	private void incrementarVersaoToken(Usuario usuario) {
+		usuario.setVersaoToken(usuario.getVersaoToken() == null ? 1 : usuario.getVersaoToken() + 1);
+	}
+
+	// Os tokens, o usuario em cache e o indice de chaves de API guardam os perfis, entao precisam ser descartados a cada alteracao
+	private void invalidarAutenticacoes(Usuario usuario) {
+		Long idUsuario = usuario.getId();
+		String login = usuario.getLogin();
+		Integer versao = usuario.getVersaoToken();
+
+		this.executarAposCommit(() -> {
+			if (versao != null)
+				this.registroVersaoToken.atualizar(idUsuario, versao);
+			this.cacheToken.invalidarPorLogin(login);
+			this.cacheUsuario.invalidar(login);
+			if (this.indiceChaveApi.isTitular(idUsuario))
+				this.indiceChaveApi.carregar();
+		});
+	}
+
+	// Mesmo efeito do invalidarAutenticacoes para cada usuário [id, login, versão anterior do token], com o
+	// índice de chaves de API recarregado uma única vez
+	private void invalidarAutenticacoes(List<Object[]> usuarios) {
+		if (usuarios.isEmpty())
+			return;
+
+		this.executarAposCommit(() -> {
+			boolean titularChaveApi = false;
+			for (Object[] usuario : usuarios) {
+				Long idUsuario = (Long) usuario[0];
+				String login = (String) usuario[1];
+				Integer versaoAnterior = (Integer) usuario[2];
+
+				this.registroVersaoToken.atualizar(idUsuario, versaoAnterior == null ? 1 : versaoAnterior + 1);
+				this.cacheToken.invalidarPorLogin(login);
+				this.cacheUsuario.invalidar(login);
+				titularChaveApi |= this.indiceChaveApi.isTitular(idUsuario);
+			}
+			if (titularChaveApi)
+				this.indiceChaveApi.carregar();
+		});
 	}
 
 	private void vincularPerfisAoUsuario(Usuario usuario) {
@@ -178,7 +574,7 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 			throw new ValidationException(ValidacaoConstantes.SENHA_E_CONFIRMACAO_SENHA_DIFERENTES);
 		}
 
-		String hashSenha = Utils.gerarHashSenha(entidade.getSenha());
+		String hashSenha = this.senhaService.gerarHash(entidade.getSenha());
 		entidade.setSenha(hashSenha);
 	}
 
@@ -209,6 +605,7 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 		if (entidade.getNovaSenha() != null) {
 			this.validarTrocarSenha(entidade, usuarioAtualizado.getSenha());
 			usuarioAtualizado.setSenha(entidade.getSenha());
+			this.incrementarVersaoToken(usuarioAtualizado);
 		}
 
 		return usuarioAtualizado;
@@ -216,7 +613,7 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 
 	private void validarTrocarSenha(Usuario usuario, String hashSenhaAtual) {
 
-		if (!Utils.isSenhasIdenticas(usuario.getSenha(), hashSenhaAtual)) {
+		if (!this.senhaService.isSenhaCorreta(usuario.getSenha(), hashSenhaAtual)) {
 			throw new ValidationException(ValidacaoConstantes.SENHA_INCORRETA);
 		}
 
@@ -224,36 +621,113 @@ public class UsuarioService extends ServiceGenerico<Usuario, UsuarioDTO, Long, U
 			throw new ValidationException(ValidacaoConstantes.SENHA_E_CONFIRMACAO_SENHA_DIFERENTES);
 		}
 
-		String hashNovaSenha = Utils.gerarHashSenha(usuario.getNovaSenha());
+		String hashNovaSenha = this.senhaService.gerarHash(usuario.getNovaSenha());
 
 		usuario.setSenha(hashNovaSenha);
 	}
 
+	// Só o login e o email que mudaram são conferidos, em uma consulta. No cadastro, o valor que o
+	// IndiceLoginEmail garante livre nem vai ao banco; a constraint unique continua sendo a garantia final
 	@Override
 	protected void validarUnicidade(Usuario entidade) throws CustomException {
-		Long idUsuario = entidade.getId() == null ? 0l : entidade.getId();
-		Long count = repository.countByEmailAndIdNot(entidade.getEmail(), idUsuario);
+		String login = this.isCampoAlterado(entidade, "login") ? entidade.getLogin() : null;
+		String email = this.isCampoAlterado(entidade, "email") ? entidade.getEmail() : null;
+
+		if (entidade.getId() == null && this.filtroCadastro) {
+			if (login != null && !this.indiceLoginEmail.isLoginTalvezUsado(login))
+				login = null;
+			if (email != null && !this.indiceLoginEmail.isEmailTalvezUsado(email))
+				email = null;
+		}
 
-		if (count > 0l) {
-			throw new CustomException(ExceptionsConstantes.EMAIL_JA_CADASTRADO);
+		if (login == null && email == null) {
+			return;
 		}
 
-		count = repository.countByLoginAndIdNot(entidade.getLogin(), idUsuario);
+		Long idUsuario = entidade.getId() == null ? 0l : entidade.getId();
+		List<Object[]> conflitos = this.repository.findConflitosUnicidade(login, email, idUsuario);
+
+		for (Object[] conflito : conflitos) {
+			if (email != null && email.equals(conflito[1]))
+				throw new CustomException(ExceptionsConstantes.EMAIL_JA_CADASTRADO);
+		}
+		for (Object[] conflito : conflitos) {
+			if (login != null && login.equals(conflito[0]))
+				throw new CustomException(ExceptionsConstantes.LOGIN_JA_CADASTRADO);
+		}
+	}
 
-		if (count > 0l) {
-			throw new CustomException(ExceptionsConstantes.LOGIN_JA_CADASTRADO);
+	// O filtro de Bloom só recebe os cadastros feitos nesta instância, então o "disponível" pode estar
+	// desatualizado e a restrição do banco recusar o INSERT. A sessão atual não serve mais para consultas, o
+	// conflito é identificado em uma nova transação para responder com a mesma mensagem da validação
+	private RuntimeException getErroUnicidadeCadastro(String login, String email, DataIntegrityViolationException erro) {
+		TransactionTemplate transacao = new TransactionTemplate(this.transactionManager);
+		transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		transacao.setReadOnly(true);
+		List<Object[]> conflitos = transacao.execute(status -> this.repository.findConflitosUnicidade(login, email, 0l));
+
+		for (Object[] conflito : conflitos) {
+			if (email != null && email.equals(conflito[1]))
+				return new CustomException(ExceptionsConstantes.EMAIL_JA_CADASTRADO);
 		}
+		for (Object[] conflito : conflitos) {
+			if (login != null && login.equals(conflito[0]))
+				return new CustomException(ExceptionsConstantes.LOGIN_JA_CADASTRADO);
+		}
+		return erro;
 	}
 
-	private void validarPerfilUsuarioLogado(Usuario usuario, Usuario usuarioLogado) {
-		boolean isAdmin = false;
+	// Uma consulta por bloco do lote, que também recusa o login ou email repetido dentro do próprio lote
+	@Override
+	protected Map<Integer, String> validarUnicidadeLote(List<Usuario> entidades) throws CustomException {
+		Set<String> logins = new HashSet<>();
+		Set<String> emails = new HashSet<>();
+		for (Usuario entidade : entidades) {
+			if (entidade.getLogin() != null)
+				logins.add(entidade.getLogin());
+			if (entidade.getEmail() != null)
+				emails.add(entidade.getEmail());
+		}
+
+		Map<String, Long> idsPorLogin = new HashMap<>();
+		Map<String, Long> idsPorEmail = new HashMap<>();
+		if (!logins.isEmpty() || !emails.isEmpty()) {
+			// O IN vazio não é aceito por todos os bancos, o valor vazio nunca coincide com um login ou email válido
+			for (Object[] cadastrado : this.repository.findLoginsEmailsCadastrados(
+					logins.isEmpty() ? Collections.singleton("") : logins,
+					emails.isEmpty() ? Collections.singleton("") : emails)) {
+				idsPorLogin.put((String) cadastrado[1], (Long) cadastrado[0]);
+				idsPorEmail.put((String) cadastrado[2], (Long) cadastrado[0]);
+			}
+		}
 
-		for (Perfil perfil : usuarioLogado.getListaPerfis()) {
-			if (perfil.getNome().equals(PERFIL_ADMIN))
-				isAdmin = true;
+		Map<Integer, String> erros = new HashMap<>();
+		for (int posicao = 0; posicao < entidades.size(); posicao++) {
+			Usuario entidade = entidades.get(posicao);
+			// Cada inclusão recebe um id próprio e negativo, que nunca coincide com um usuário gravado
+			Long idUsuario = entidade.getId() == null ? -(posicao + 1l) : entidade.getId();
+
+			if (this.isUsadoPorOutro(idsPorEmail, entidade.getEmail(), idUsuario)) {
+				erros.put(posicao, ExceptionsConstantes.EMAIL_JA_CADASTRADO);
+			} else if (this.isUsadoPorOutro(idsPorLogin, entidade.getLogin(), idUsuario)) {
+				erros.put(posicao, ExceptionsConstantes.LOGIN_JA_CADASTRADO);
+			} else {
+				// Os próximos itens do lote não podem repetir este login e email
+				idsPorEmail.put(entidade.getEmail(), idUsuario);
+				idsPorLogin.put(entidade.getLogin(), idUsuario);
+			}
 		}
+		return erros;
+	}
+
+	private boolean isUsadoPorOutro(Map<String, Long> idsPorValor, String valor, Long idUsuario) {
+		Long idDono = idsPorValor.get(valor);
+		return idDono != null && !idDono.equals(idUsuario);
+	}
 
-		if (!isAdmin && !usuario.getId().equals(usuarioLogado.getId()))
+	// O proprio usuario sempre pode, os demais precisam da permissao
+	private void validarPerfilUsuarioLogado(Usuario usuario, UsuarioLogado usuarioLogado, String permissao) {
+		if (!usuarioLogado.possui(permissao) && !usuario.getId().equals(usuarioLogado.getId()))
 			throw new CustomException(ExceptionsConstantes.USUARIO_SEM_PERMISSAO);
 	}
 
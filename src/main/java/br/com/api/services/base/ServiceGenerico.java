@@ -1,24 +1,99 @@
 package br.com.api.services.base;
 
 import java.io.Serializable;
+import java.text.MessageFormat;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
+import org.apache.log4j.Logger;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.boot.internal.EnversService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import br.com.api.configs.security.UsuarioLogado;
 import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.dtos.PaginaDTO;
+import br.com.api.dtos.ResultadoAtivacaoLoteDTO;
+import br.com.api.dtos.ResultadoLoteDTO;
+import br.com.api.exceptions.ConflitoException;
 import br.com.api.exceptions.CustomException;
+import br.com.api.exceptions.ValidationException;
 import br.com.api.models.Usuario;
 import br.com.api.models.base.Pojo;
+import br.com.api.utils.CursorPagina;
 import br.com.api.utils.ValidacaoUtils;
 
 public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  ID extends Serializable, REPOSITORIO extends JpaRepository<ENTIDADE, ID>> {
 
+	// Ids por comando nas operações em massa
+	protected static final int TAMANHO_BLOCO_IDS = 500;
+
+	private static Logger logger = Logger.getLogger(ServiceGenerico.class);
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private Validator validator;
+
+	// Itens por bloco do lote, o mesmo tamanho do JDBC batch para que cada bloco vire um lote de INSERT/UPDATE
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int tamanhoBlocoLote = 50;
+
+	@Value("${servico.lote.maximo-itens:5000}")
+	private int maximoItensLote = 5000;
+
+	@Value("${servico.paginacao.tamanho-padrao:50}")
+	private int tamanhoPaginaPadrao = 50;
+
+	@Value("${servico.paginacao.tamanho-maximo:200}")
+	private int tamanhoPaginaMaximo = 200;
+
+	// O total da listagem é recontado no máximo uma vez por intervalo, não a cada página
+	@Value("${servico.paginacao.validade-total-segundos:60}")
+	private long segundosValidadeTotal = 60;
+
+	private volatile TotalAproximado totalAproximado;
+
+	private Class<ENTIDADE> classeEntidade;
+
+	private Class<ID> classeId;
+
 	public abstract REPOSITORIO getRepositorio();
 
 	@Transactional(readOnly = true)
@@ -26,6 +101,29 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 		return this.getRepositorio().findById(id);
 	}
 
+	// Paginação por chave: cada página começa depois do último id da anterior, sem OFFSET e sem count(*) por página
+	@Transactional(readOnly = true)
+	public PaginaDTO<ENTIDADEDTO> consultarPagina(String cursor, Integer tamanho, boolean contarTotal) {
+		int limite = tamanho == null ? this.tamanhoPaginaPadrao : Math.min(Math.max(tamanho, 1), this.tamanhoPaginaMaximo);
+		ID ultimoId = cursor == null || cursor.isBlank() ? null : CursorPagina.ler(cursor, this.getClasseId());
+
+		// Um item a mais indica que existe a próxima página
+		List<ENTIDADEDTO> itens = this.consultarPaginaProjecao(ultimoId, limite + 1);
+		String proximoCursor = null;
+		if (itens.size() > limite) {
+			itens = itens.subList(0, limite);
+			proximoCursor = CursorPagina.gerar(this.getIdDTO(itens.get(limite - 1)));
+		}
+
+		return new PaginaDTO<>(itens, proximoCursor, contarTotal ? this.getTotalAproximado() : null);
+	}
+
+	// Leitura para os GETs, vazio quando não existe ou está inativo
+	@Transactional(readOnly = true)
+	public Optional<ENTIDADEDTO> consultarDTOPorId(ID id) {
+		return this.consultarProjecaoPorId(id);
+	}
+
 	@Transactional(readOnly = true)
 	protected List<ENTIDADEDTO> consultarTodos() throws CustomException {
 		return null;
@@ -33,25 +131,28 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 
 	// Exclusão fisíca
 	@Transactional(rollbackFor = Exception.class)
-	public void deletar(ID id, Usuario usuario) throws CustomException {
+	public void deletar(ID id, UsuarioLogado usuario) throws CustomException {
 		ENTIDADE entidade = this.consultarPorId(id).get();
-		entidade.setUsuario(ValidacaoUtils.isUsuarioValido(usuario) ? usuario : null);
+		entidade.setUsuario(this.getReferenciaUsuario(usuario));
 		this.validarExclusao(entidade);
 		this.resolverPreExclusao(entidade);
 		this.getRepositorio().deleteById(entidade.getId());
+		this.resolverPosPersistencia(entidade);
 	}
 	
 	// Exclusão fisíca
 	@Transactional(rollbackFor = Exception.class)
 	public void deletarSemValidacao(ID id) { 
+		Optional<ENTIDADE> entidade = this.consultarPorId(id); // O deleteById ja consulta a entidade, aqui ela sai do cache da sessao
 		this.getRepositorio().deleteById(id);
+		entidade.ifPresent(this::resolverPosPersistencia);
 	}
 
 	// Exclusão lógica
 	@Transactional(rollbackFor = Exception.class)
-	public void excluir(ID id, Usuario usuario) throws CustomException {
+	public void excluir(ID id, UsuarioLogado usuario) throws CustomException {
 		ENTIDADE entidade = this.consultarPorId(id).get();
-		entidade.setUsuario(ValidacaoUtils.isUsuarioValido(usuario) ? usuario : null);
+		entidade.setUsuario(this.getReferenciaUsuario(usuario));
 		this.validarExclusao(entidade);
 		this.resolverPreExclusao(entidade);
 		entidade.setAtivo(false);
@@ -62,29 +163,46 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 	
 	// Exclusão lógica
 	@Transactional(rollbackFor = Exception.class)
-	public void excluirSemValidacao(ID id, Usuario usuario) throws CustomException { 
+	public void excluirSemValidacao(ID id, UsuarioLogado usuario) throws CustomException { 
 		ENTIDADE entidade = this.consultarPorId(id).get();
-		entidade.setUsuario(ValidacaoUtils.isUsuarioValido(usuario) ? usuario : null);
+		entidade.setUsuario(this.getReferenciaUsuario(usuario));
 		entidade.setAtivo(false);
 		entidade.setDataExclusao(LocalDateTime.now());
 		
 		this.salvarEntidade(entidade);
 	}
 	
+	// Exclusão lógica em massa dos registros ativos do filtro, sem carregar as entidades: um UPDATE por bloco
+	// de ids, com os ganchos validarExclusaoLote e resolverPosExclusaoLote e a auditoria gravada por conjunto
+	@Transactional(rollbackFor = Exception.class)
+	public ResultadoAtivacaoLoteDTO excluirLote(Specification<ENTIDADE> filtro, UsuarioLogado usuario) throws CustomException {
+		return this.alterarAtivoLote(filtro, usuario, false);
+	}
+
+	// Desfaz a exclusão lógica dos registros inativos do filtro, com os ganchos validarRestauracaoLote e resolverPosRestauracaoLote
+	@Transactional(rollbackFor = Exception.class)
+	public ResultadoAtivacaoLoteDTO restaurarLote(Specification<ENTIDADE> filtro, UsuarioLogado usuario) throws CustomException {
+		return this.alterarAtivoLote(filtro, usuario, true);
+	}
+
 	// Incluir um novo registro ou Alterar um existente
 	@Transactional(rollbackFor = Exception.class)
-	public ENTIDADE salvar(ENTIDADE entidade, Usuario usuario) throws CustomException {
-		entidade.setUsuario(ValidacaoUtils.isUsuarioValido(usuario) ? usuario : null);
+	public ENTIDADE salvar(ENTIDADE entidade, UsuarioLogado usuario) throws CustomException {
+		entidade.setUsuario(this.getReferenciaUsuario(usuario));
 		if(entidade.getId() == null) {
 			this.validarInclusao(entidade);
 			entidade.setDataInclusao(LocalDateTime.now());
+			entidade.setVersao(null); // Gerada pelo Hibernate, a versão enviada na inclusão é ignorada
 		}else{
 			this.validarAlteracao(entidade);
-			Optional<ENTIDADE> entidadeOld = this.consultarPorId(entidade.getId());
-			
-			entidadeOld.orElseThrow(() -> new EntityNotFoundException(ExceptionsConstantes.ENTIDADE_NAO_ENCONTRADA));
-			
-			entidade.setDataInclusao(entidadeOld.get().getDataInclusao());
+			// A entidade já carregada na sessão tem a data de inclusão do banco, sem uma segunda consulta
+			if (!this.entityManager.contains(entidade)) {
+				Optional<ENTIDADE> entidadeOld = this.consultarPorId(entidade.getId());
+				
+				entidadeOld.orElseThrow(() -> new EntityNotFoundException(ExceptionsConstantes.ENTIDADE_NAO_ENCONTRADA));
+				
+				entidade.setDataInclusao(entidadeOld.get().getDataInclusao());
+			}
 		}
 		this.validarUnicidade(entidade);
 		this.resolverPreDependencias(entidade);		
@@ -96,6 +214,35 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 		return entidade;
 	}
 	
+	// Inclusão ou alteração em lote, um item inválido não impede a gravação dos demais.
+	// O resultado de cada item volta na mesma posição em que foi enviado. Só as validações são isoladas por
+	// item: um erro do banco (restrição, tamanho de coluna) invalida a sessão e a transação, então o lote
+	// inteiro é recusado, inclusive os blocos já enviados, indicando os itens onde a falha ocorreu
+	@Transactional(rollbackFor = Exception.class)
+	public List<ResultadoLoteDTO> salvarLote(List<ENTIDADEDTO> listaEntidadesDTO, UsuarioLogado usuario) {
+		this.validarTamanhoLote(listaEntidadesDTO == null ? 0 : listaEntidadesDTO.size());
+
+		ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[listaEntidadesDTO.size()];
+		int tamanhoBloco = Math.max(1, this.tamanhoBlocoLote);
+
+		for (int inicio = 0; inicio < listaEntidadesDTO.size(); inicio += tamanhoBloco) {
+			int fim = Math.min(inicio + tamanhoBloco, listaEntidadesDTO.size());
+			this.salvarBlocoLote(listaEntidadesDTO, inicio, fim, usuario, resultados);
+
+			// Envia o bloco em JDBC batch e libera a sessão, que não cresce com o tamanho do lote
+			try {
+				this.entityManager.flush();
+			} catch (PersistenceException | DataAccessException e) {
+				logger.error(MessageFormat.format("Lote de {0} recusado pelo banco no bloco {1} a {2}", this.getNomeEntidade(),
+						inicio, fim - 1), e);
+				throw new CustomException(MessageFormat.format(ExceptionsConstantes.LOTE_NAO_GRAVADO, inicio, fim - 1));
+			}
+			this.entityManager.clear();
+		}
+
+		return Arrays.asList(resultados);
+	}
+
 	// Método principal pra salvar inclusão, alteração ou exclusão lógica
 	@Transactional(rollbackFor = Exception.class)
 	protected ENTIDADE salvarEntidade(ENTIDADE entidade) throws CustomException {
@@ -106,17 +253,311 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 			pojoBanco = this.getRepositorio().save(entidade);
 		} catch (ObjectOptimisticLockingFailureException e) {
 			e.printStackTrace();
-			throw new CustomException(ExceptionsConstantes.ENTIDADE_JA_ALTERADA);
+			throw new ConflitoException(ExceptionsConstantes.ENTIDADE_JA_ALTERADA);
 		}
+		this.resolverPosPersistencia(pojoBanco);
 		return pojoBanco;
 	}
 		
+	// Executa a acao apenas depois do commit, ou imediatamente se nao houver transacao ativa
+	protected void executarAposCommit(Runnable acao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			acao.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				acao.run();
+			}
+		});
+	}
+
+	// Divide os ids em blocos para os comandos com IN, abaixo do limite de parâmetros dos bancos suportados
+	protected static <T> List<List<T>> dividirEmBlocos(List<T> itens) {
+		List<List<T>> blocos = new ArrayList<>();
+		for (int inicio = 0; inicio < itens.size(); inicio += TAMANHO_BLOCO_IDS) {
+			blocos.add(itens.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_IDS, itens.size())));
+		}
+		return blocos;
+	}
+
+	// Mesmo limite para todas as operações em lote
+	protected void validarTamanhoLote(int quantidade) {
+		if (quantidade == 0) {
+			throw new ValidationException(ExceptionsConstantes.LOTE_NAO_INFORMADO);
+		}
+		if (quantidade > this.maximoItensLote) {
+			throw new ValidationException(MessageFormat.format(ExceptionsConstantes.LIMITE_LOTE_EXCEDIDO, this.maximoItensLote));
+		}
+	}
+
+	// Revisão do Envers da transação atual, para os comandos em massa que gravam as tabelas de auditoria
+	// diretamente. Gravada já no flush, as linhas de auditoria referenciam o revinfo. O AuditProcess da sessão
+	// é o mesmo que o Envers usa nas entidades, então as duas gravações ficam na mesma revisão
+	protected int getRevisaoAuditoria() {
+		EventSource sessao = this.entityManager.unwrap(EventSource.class);
+		DefaultRevisionEntity revisao = (DefaultRevisionEntity) sessao.getFactory().getServiceRegistry()
+				.getService(EnversService.class).getAuditProcessManager().get(sessao).getCurrentRevisionData(sessao, true);
+		this.entityManager.flush();
+		return revisao.getId();
+	}
+
+	// A alteração condicional só segue se o registro ainda estiver na versão que o cliente leu. O Hibernate
+	// confere a mesma versão no UPDATE ... WHERE versao = ?, que cobre a alteração concorrente depois desta leitura
+	protected void validarVersao(ENTIDADE entidade, Long versaoInformada) throws CustomException {
+		if (versaoInformada == null) {
+			throw new ValidationException(ExceptionsConstantes.VERSAO_NAO_INFORMADA);
+		}
+		if (!versaoInformada.equals(entidade.getVersao())) {
+			throw new ConflitoException(ExceptionsConstantes.ENTIDADE_JA_ALTERADA);
+		}
+	}
+
+	// Compara com o valor carregado do banco; a entidade nova ou fora da sessão conta como alterada
+	protected boolean isCampoAlterado(ENTIDADE entidade, String campo) {
+		EntityEntry entrada = this.entityManager.unwrap(SessionImplementor.class).getPersistenceContext()
+				.getEntry(entidade);
+		if (entrada == null || entrada.getLoadedState() == null) {
+			return true;
+		}
+		return !Objects.equals(entrada.getLoadedValue(campo), entrada.getPersister().getPropertyValue(entidade, campo));
+	}
+
+	// Sobrescreva com uma projeção do repositório que já devolva o DTO, sem hidratar a entidade nem passar pelo conversor
+	protected Optional<ENTIDADEDTO> consultarProjecaoPorId(ID id) {
+		return this.consultarPorId(id).filter(Pojo::isAtivo).map(this::converterEntidadeParaDTO);
+	}
+
+	// Idem, para a página da listagem
+	protected List<ENTIDADEDTO> consultarPaginaProjecao(ID ultimoId, int limite) {
+		List<ENTIDADE> entidades = this.consultarPaginaEntidades(ultimoId, limite);
+		List<ENTIDADEDTO> itens = new ArrayList<>(entidades.size());
+		for (ENTIDADE entidade : entidades) {
+			itens.add(this.converterEntidadeParaDTO(entidade));
+		}
+		return itens;
+	}
+
+	// Id do DTO para o cursor da página, sobrescreva quando o DTO expõe o id
+	protected ID getIdDTO(ENTIDADEDTO entidadeDTO) {
+		return this.converterDTOParaEntidade(entidadeDTO).getId();
+	}
+
+	// Registros ativos em ordem de id, o id é único e não muda, então a ordem é estável entre as páginas
+	protected List<ENTIDADE> consultarPaginaEntidades(ID ultimoId, int limite) {
+		String jpql = "select e from " + this.getNomeEntidade() + " e where e.ativo = true"
+				+ (ultimoId == null ? "" : " and e.id > :ultimoId") + " order by e.id";
+
+		TypedQuery<ENTIDADE> query = this.entityManager.createQuery(jpql, this.getClasseEntidade()).setMaxResults(limite);
+		if (ultimoId != null) {
+			query.setParameter("ultimoId", ultimoId);
+		}
+		return query.getResultList();
+	}
+
+	private Long getTotalAproximado() {
+		TotalAproximado total = this.totalAproximado;
+		long agora = System.currentTimeMillis();
+		if (total == null || agora >= total.expiraEm) {
+			Long quantidade = this.entityManager
+					.createQuery("select count(e) from " + this.getNomeEntidade() + " e where e.ativo = true", Long.class)
+					.getSingleResult();
+			total = new TotalAproximado(quantidade, agora + TimeUnit.SECONDS.toMillis(this.segundosValidadeTotal));
+			this.totalAproximado = total;
+		}
+		return total.quantidade;
+	}
+
+	private String getNomeEntidade() {
+		return this.entityManager.getMetamodel().entity(this.getClasseEntidade()).getName();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Class<ENTIDADE> getClasseEntidade() {
+		if (this.classeEntidade == null) {
+			this.classeEntidade = (Class<ENTIDADE>) GenericTypeResolver.resolveTypeArguments(this.getClass(),
+					ServiceGenerico.class)[0];
+		}
+		return this.classeEntidade;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Class<ID> getClasseId() {
+		if (this.classeId == null) {
+			this.classeId = (Class<ID>) GenericTypeResolver.resolveTypeArguments(this.getClass(),
+					ServiceGenerico.class)[2];
+		}
+		return this.classeId;
+	}
+
+	// Primeiro valida todo o bloco e só depois grava, assim as consultas das validações não disparam o flush item a item
+	private void salvarBlocoLote(List<ENTIDADEDTO> listaEntidadesDTO, int inicio, int fim, UsuarioLogado usuario,
+			ResultadoLoteDTO[] resultados) {
+		List<ENTIDADE> validadas = new ArrayList<>();
+		List<Integer> indices = new ArrayList<>();
+
+		for (int indice = inicio; indice < fim; indice++) {
+			ENTIDADEDTO entidadeDTO = listaEntidadesDTO.get(indice);
+			ENTIDADE entidade = null;
+			try {
+				entidade = this.converterDTOParaEntidade(entidadeDTO);
+				validadas.add(this.validarItemLote(entidadeDTO, entidade, usuario));
+				indices.add(indice);
+			} catch (RuntimeException ex) {
+				this.verificarTransacaoLote(indice);
+				this.descartarItemLote(entidade);
+				resultados[indice] = ResultadoLoteDTO.falha(indice, ex.getMessage());
+			}
+		}
+
+		Map<Integer, String> duplicadas = validadas.isEmpty() ? Collections.emptyMap()
+				: this.validarUnicidadeLote(validadas);
+
+		for (int posicao = 0; posicao < validadas.size(); posicao++) {
+			ENTIDADE entidade = validadas.get(posicao);
+			int indice = indices.get(posicao);
+
+			String erro = duplicadas.get(posicao);
+			if (erro != null) {
+				this.descartarItemLote(entidade);
+				resultados[indice] = ResultadoLoteDTO.falha(indice, erro);
+				continue;
+			}
+
+			try {
+				this.resolverPreDependencias(entidade);
+				entidade.setAtivo(true);
+				ENTIDADE entidadeBanco = this.salvarEntidade(entidade);
+				entidade.setId(entidadeBanco.getId());
+				this.resolverPosDependencias(entidade);
+				resultados[indice] = ResultadoLoteDTO.sucesso(indice, entidade.getId());
+			} catch (RuntimeException ex) {
+				this.verificarTransacaoLote(indice);
+				this.descartarItemLote(entidade);
+				resultados[indice] = ResultadoLoteDTO.falha(indice, ex.getMessage());
+			}
+		}
+	}
+
+	// Mesmas validações do salvar, com a validação do DTO que o @Valid faria no cadastro
+	private ENTIDADE validarItemLote(ENTIDADEDTO entidadeDTO, ENTIDADE entidade, UsuarioLogado usuario) {
+		if (entidade.getId() == null) {
+			Set<ConstraintViolation<ENTIDADEDTO>> violacoes = this.validator.validate(entidadeDTO);
+			if (!violacoes.isEmpty()) {
+				throw new ValidationException(violacoes.iterator().next().getMessage());
+			}
+
+			entidade.setUsuario(this.getReferenciaUsuario(usuario));
+			this.validarInclusao(entidade);
+			entidade.setDataInclusao(LocalDateTime.now());
+			entidade.setVersao(null);
+			return entidade;
+		}
+
+		entidade.setUsuario(this.getReferenciaUsuario(usuario));
+		this.validarAlteracao(entidade);
+		ENTIDADE entidadeAlterada = this.validarCamposAlterados(entidade);
+		if (entidadeAlterada != null) {
+			entidade = entidadeAlterada;
+			entidade.setUsuario(this.getReferenciaUsuario(usuario));
+		}
+
+		Optional<ENTIDADE> entidadeOld = this.consultarPorId(entidade.getId());
+		entidadeOld.orElseThrow(() -> new EntityNotFoundException(ExceptionsConstantes.ENTIDADE_NAO_ENCONTRADA));
+		entidade.setDataInclusao(entidadeOld.get().getDataInclusao());
+		return entidade;
+	}
+
+	private ResultadoAtivacaoLoteDTO alterarAtivoLote(Specification<ENTIDADE> filtro, UsuarioLogado usuario, boolean ativo) {
+		List<ID> ids = this.consultarIdsLote(filtro, !ativo);
+		if (ids.isEmpty()) {
+			return new ResultadoAtivacaoLoteDTO(0, 0);
+		}
+
+		int revisao = this.getRevisaoAuditoria(); // O flush da revisão também grava o que já estava pendente na sessão
+		LocalDateTime agora = LocalDateTime.now();
+		Usuario referenciaUsuario = this.getReferenciaUsuario(usuario);
+
+		String jpql = "update " + this.getNomeEntidade() + " e set e.ativo = :ativo, e.dataAlteracao = :agora,"
+				+ (ativo ? " e.dataExclusao = null," : " e.dataExclusao = :agora,")
+				+ (referenciaUsuario == null ? "" : " e.usuario = :usuario,")
+				+ " e.versao = coalesce(e.versao, 0) + 1 where e.id in :ids and e.ativo = :ativoAnterior";
+
+		int alterados = 0;
+		for (List<ID> bloco : dividirEmBlocos(ids)) {
+			if (ativo)
+				this.validarRestauracaoLote(bloco);
+			else
+				this.validarExclusaoLote(bloco);
+
+			Query update = this.entityManager.createQuery(jpql).setParameter("ativo", ativo).setParameter("agora", agora)
+					.setParameter("ids", bloco).setParameter("ativoAnterior", !ativo);
+			if (referenciaUsuario != null) {
+				update.setParameter("usuario", referenciaUsuario);
+			}
+			alterados += update.executeUpdate();
+
+			if (ativo)
+				this.resolverPosRestauracaoLote(bloco);
+			else
+				this.resolverPosExclusaoLote(bloco);
+
+			// Depois dos ganchos, para registrar também o que eles alteraram
+			this.auditarLote(revisao, bloco);
+		}
+
+		return new ResultadoAtivacaoLoteDTO(ids.size(), alterados);
+	}
+
+	// Apenas os ids, em ordem, dos registros do filtro no estado informado
+	private List<ID> consultarIdsLote(Specification<ENTIDADE> filtro, boolean ativo) {
+		CriteriaBuilder construtor = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<ID> consulta = construtor.createQuery(this.getClasseId());
+		Root<ENTIDADE> raiz = consulta.from(this.getClasseEntidade());
+
+		Predicate condicao = construtor.equal(raiz.get("ativo"), ativo);
+		Predicate condicaoFiltro = filtro == null ? null : filtro.toPredicate(raiz, consulta, construtor);
+		if (condicaoFiltro != null) {
+			condicao = construtor.and(condicao, condicaoFiltro);
+		}
+
+		consulta.select(raiz.<ID>get("id")).where(condicao).orderBy(construtor.asc(raiz.get("id")));
+		return this.entityManager.createQuery(consulta).getResultList();
+	}
+
+	// A falha de um item só fica no seu resultado se a transação ainda puder ser confirmada. Um erro do banco
+	// dentro do repositório já a marcou para rollback, e o commit do lote falharia de qualquer forma
+	private void verificarTransacaoLote(int indice) {
+		if (TransactionAspectSupport.currentTransactionStatus().isRollbackOnly()) {
+			throw new CustomException(MessageFormat.format(ExceptionsConstantes.LOTE_NAO_GRAVADO, indice, indice));
+		}
+	}
+
+	// A entidade recusada pode ter sido carregada e alterada pelas validações, sem o detach ela iria no flush do bloco.
+	// O getReference devolve a instância da sessão, quando não há nenhuma o proxy descartado não chega a consultar
+	private void descartarItemLote(ENTIDADE entidade) {
+		if (entidade != null && entidade.getId() != null) {
+			this.entityManager.detach(this.entityManager.getReference(entidade.getClass(), entidade.getId()));
+		}
+	}
+
+	// Apenas a referencia para a coluna usuario_id, sem consultar o usuario
+	private Usuario getReferenciaUsuario(UsuarioLogado usuario) {
+		return ValidacaoUtils.isUsuarioValido(usuario) ? this.entityManager.getReference(Usuario.class, usuario.getId())
+				: null;
+	}
+
 	protected void resolverPreDependencias(ENTIDADE entidade) throws CustomException {}
 
 	protected void resolverPosDependencias(ENTIDADE entidade) throws CustomException {}
 
 	protected void resolverPreExclusao(ENTIDADE entidade) throws CustomException {}
 
+	// Chamado a cada gravacao ou exclusao fisica, ainda dentro da transacao
+	protected void resolverPosPersistencia(ENTIDADE entidade) throws CustomException {}
+
 	protected void resolverPosExclusao(ENTIDADE entidade) throws CustomException {}
 
 	protected void validarAlteracao(ENTIDADE entidade) throws CustomException {}
@@ -125,9 +566,35 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 
 	protected void validarExclusao(ENTIDADE entidade) throws CustomException {}
 
+	// Variantes em massa, chamadas a cada bloco de ids. A validação pode recusar a operação inteira
+	protected void validarExclusaoLote(List<ID> ids) throws CustomException {}
+
+	protected void resolverPosExclusaoLote(List<ID> ids) throws CustomException {}
+
+	protected void validarRestauracaoLote(List<ID> ids) throws CustomException {}
+
+	protected void resolverPosRestauracaoLote(List<ID> ids) throws CustomException {}
+
+	// As alterações em massa não passam pelo Envers: cada entidade grava aqui, por conjunto, o estado
+	// atual dos ids na revisão informada
+	protected abstract void auditarLote(int revisao, List<ID> ids) throws CustomException;
+
 	protected void validarInclusao(ENTIDADE entidade) throws CustomException {}
 
 	protected void validarUnicidade(ENTIDADE entidade) throws CustomException {}
+
+	// Erro de unicidade por posição da lista, o padrão consulta item a item e deve ser sobrescrito por uma consulta por conjunto
+	protected Map<Integer, String> validarUnicidadeLote(List<ENTIDADE> entidades) throws CustomException {
+		Map<Integer, String> erros = new HashMap<>();
+		for (int posicao = 0; posicao < entidades.size(); posicao++) {
+			try {
+				this.validarUnicidade(entidades.get(posicao));
+			} catch (RuntimeException ex) {
+				erros.put(posicao, ex.getMessage());
+			}
+		}
+		return erros;
+	}
 	
 	// Utilizado para conversão do input em model e do model em response
 	public abstract ENTIDADE converterDTOParaEntidade(ENTIDADEDTO entidadeDTO);
@@ -138,5 +605,15 @@ public abstract class ServiceGenerico<ENTIDADE extends Pojo<ID>, ENTIDADEDTO,  I
 
 	protected List<ENTIDADEDTO> converterListaEntidadeParaListaDTO(List<ENTIDADE> listaEntidades) throws CustomException { return null; }
 	// --
-}
 
+	private static final class TotalAproximado {
+
+		private final long quantidade;
+		private final long expiraEm;
+
+		private TotalAproximado(long quantidade, long expiraEm) {
+			this.quantidade = quantidade;
+			this.expiraEm = expiraEm;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package br.com.api.utils;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import br.com.api.constants.ExceptionsConstantes;
+import br.com.api.exceptions.ValidationException;
+
+/**
+ * Cursor opaco da paginação por chave. Guarda apenas o último id entregue, o
+ * cliente repassa o valor sem interpretar e a versão no início permite mudar o
+ * formato sem aceitar cursores antigos por engano.
+ */
+public class CursorPagina {
+
+	private static final String VERSAO = "1:";
+
+	public static String gerar(Serializable ultimoId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((VERSAO + ultimoId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static <ID> ID ler(String cursor, Class<ID> classeId) {
+		try {
+			String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (conteudo.startsWith(VERSAO) && conteudo.length() > VERSAO.length()) {
+				ID ultimoId = DefaultConversionService.getSharedInstance().convert(conteudo.substring(VERSAO.length()),
+						classeId);
+				if (ultimoId != null) {
+					return ultimoId;
+				}
+			}
+		} catch (RuntimeException ex) {
+			// Base64 ou id em formato inválido, tratado abaixo como cursor inválido
+		}
+		throw new ValidationException(ExceptionsConstantes.CURSOR_INVALIDO);
+	}
+}
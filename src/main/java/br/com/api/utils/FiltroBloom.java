@@ -0,0 +1,65 @@
+package br.com.api.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para textos. Responde "com certeza ausente" ou "talvez
+ * presente" sem bloqueio e sem alocar memória na consulta. Não suporta remoção,
+ * quem precisar descartar valores deve reconstruir o filtro.
+ */
+public class FiltroBloom {
+
+	private final AtomicLongArray bits;
+	private final int numeroBits;
+	private final int numeroHashes;
+
+	public FiltroBloom(int capacidade, double taxaFalsoPositivo) {
+		int capacidadeMinima = Math.max(1, capacidade);
+		long tamanho = (long) Math.ceil(-capacidadeMinima * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+
+		this.numeroBits = (int) Math.max(64, Math.min(tamanho, Integer.MAX_VALUE - 63));
+		this.numeroHashes = Math.max(1, (int) Math.round((double) this.numeroBits / capacidadeMinima * Math.log(2)));
+		this.bits = new AtomicLongArray((this.numeroBits + 63) / 64);
+	}
+
+	public void adicionar(String valor) {
+		long hash = gerarHash(valor);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < this.numeroHashes; i++) {
+			int indice = ((hash1 + i * hash2) & Integer.MAX_VALUE) % this.numeroBits;
+			long mascara = 1L << indice;
+			int posicao = indice >>> 6;
+			long atual = this.bits.get(posicao);
+
+			while ((atual & mascara) == 0 && !this.bits.compareAndSet(posicao, atual, atual | mascara)) {
+				atual = this.bits.get(posicao);
+			}
+		}
+	}
+
+	public boolean isTalvezPresente(String valor) {
+		long hash = gerarHash(valor);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < this.numeroHashes; i++) {
+			int indice = ((hash1 + i * hash2) & Integer.MAX_VALUE) % this.numeroBits;
+			if ((this.bits.get(indice >>> 6) & (1L << indice)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// FNV-1a de 64 bits percorrendo os caracteres, sem converter o texto em bytes
+	private static long gerarHash(String valor) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < valor.length(); i++) {
+			hash ^= valor.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash ^ (hash >>> 29);
+	}
+}
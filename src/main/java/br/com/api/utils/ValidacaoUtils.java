@@ -1,22 +1,13 @@
 package br.com.api.utils;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static br.com.api.models.Perfil.PERFIL_USUARIO;
-import static br.com.api.models.Perfil.PERFIL_ADMIN;
-import br.com.api.models.Usuario;
+import br.com.api.configs.security.UsuarioLogado;
 
 public class ValidacaoUtils {
 
-	public static boolean isPerfilValido(String perfil) {
-		List<String> listaPerfisValidos = Arrays.asList(PERFIL_USUARIO, PERFIL_ADMIN);
-		return listaPerfisValidos.contains(perfil);
-	}
-
-	public static boolean isUsuarioValido(Usuario usuario) {
+	public static boolean isUsuarioValido(UsuarioLogado usuario) {
 		if (usuario != null && usuario.getId() != null) {
 			return true;
 		}
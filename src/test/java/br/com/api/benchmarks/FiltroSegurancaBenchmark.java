@@ -0,0 +1,115 @@
+package br.com.api.benchmarks;
+
+import static br.com.api.models.Perfil.PERFIL_USUARIO;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import br.com.api.StartApplication;
+import br.com.api.configs.security.jwt.JwtTokenProvider;
+import br.com.api.models.Perfil;
+import br.com.api.models.Usuario;
+
+/**
+ * Compara a cadeia completa do Spring Security com o filtro único da cadeia
+ * enxuta, em uma rota liberada e em uma rota protegida com token válido.
+ * Executar com:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=br.com.api.benchmarks.FiltroSegurancaBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FiltroSegurancaBenchmark {
+
+	@Param({ "false", "true" })
+	private String enxuto;
+
+	private ConfigurableApplicationContext contexto;
+
+	private Filter cadeia;
+
+	private String token;
+
+	@Setup
+	public void setUp() {
+		this.contexto = new SpringApplicationBuilder(StartApplication.class).profiles("test")
+				.properties("server.port=0", "security.filtro.enxuto=" + this.enxuto,
+						"security.jwt.autenticacao-por-claims=true")
+				.run();
+		this.cadeia = this.contexto.getBean("springSecurityFilterChain", Filter.class);
+
+		Perfil perfil = new Perfil();
+		perfil.setNome(PERFIL_USUARIO);
+		Usuario usuario = new Usuario();
+		usuario.setId(1l);
+		usuario.setLogin("benchmark");
+		usuario.setListaPerfis(Arrays.asList(perfil));
+		this.token = this.contexto.getBean(JwtTokenProvider.class).criarToken(usuario);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.contexto.close();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse rotaLiberada() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/acesso/login");
+		request.setServletPath("/acesso/login");
+		return this.executar(request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse rotaProtegida() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/usuarios");
+		request.setServletPath("/api/usuarios");
+		request.addHeader("Authorization", "Bearer " + this.token);
+		return this.executar(request);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options opcoes = new OptionsBuilder().include(FiltroSegurancaBenchmark.class.getSimpleName())
+				.addProfiler("gc").build();
+		new Runner(opcoes).run();
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private MockHttpServletResponse executar(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.cadeia.doFilter(request, response, new MockFilterChain());
+		if (response.getStatus() != 200) {
+			throw new IllegalStateException("Requisicao negada: " + request.getRequestURI());
+		}
+		return response;
+	}
+}
@@ -0,0 +1,81 @@
+package br.com.api.benchmarks;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import br.com.api.configs.security.jwt.ClaimsToken;
+import br.com.api.configs.security.jwt.VerificadorHs256;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Compara a verificação do token pelo jjwt, como era feito a cada requisição,
+ * com o verificador HS256 dedicado. Executar com:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=br.com.api.benchmarks.VerificacaoTokenBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificacaoTokenBenchmark {
+
+	private String chaveBase64;
+
+	private VerificadorHs256 verificador;
+
+	private String token;
+
+	@Setup
+	public void setUp() {
+		byte[] chave = "secret".getBytes();
+		this.chaveBase64 = Base64.getEncoder().encodeToString(chave);
+		this.verificador = new VerificadorHs256(chave);
+
+		Claims claims = Jwts.claims().setSubject("teste");
+		claims.put("roles", Arrays.asList("USUARIO", "ADMINISTRADOR"));
+		claims.put("id", 1l);
+		claims.put("ver", 0);
+
+		this.token = Jwts.builder().setClaims(claims).setId(UUID.randomUUID().toString()).setIssuedAt(new Date())
+				.setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+				.signWith(SignatureAlgorithm.HS256, this.chaveBase64).compact();
+	}
+
+	// Caminho anterior: um parser novo e a chave base64 decodificada a cada chamada
+	@Benchmark
+	public Claims jjwt() {
+		return Jwts.parser().setSigningKey(this.chaveBase64).parseClaimsJws(this.token).getBody();
+	}
+
+	@Benchmark
+	public ClaimsToken verificadorHs256() {
+		return this.verificador.verificar(this.token);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options opcoes = new OptionsBuilder().include(VerificacaoTokenBenchmark.class.getSimpleName())
+				.addProfiler("gc").build();
+		new Runner(opcoes).run();
+	}
+}
@@ -0,0 +1,66 @@
+package br.com.api.configs.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.api.configs.security.CacheUsuarioAutenticado.Entrada;
+import br.com.api.models.Usuario;
+
+@DisplayName("Testes unitários do cache de usuários autenticados")
+public class CacheUsuarioAutenticadoTest {
+
+	@Test
+	@DisplayName("Consultando usuários existentes e inexistentes")
+	public void consultarUsuario() {
+		CacheUsuarioAutenticado cache = new CacheUsuarioAutenticado(100, 300, 30);
+		Usuario usuario = new Usuario();
+		usuario.setLogin("teste");
+
+		cache.armazenar("teste", usuario, cache.getGeracao());
+		cache.armazenarInexistente("inexistente", cache.getGeracao());
+
+		Entrada entrada = cache.consultar("teste");
+		assertThat(entrada.isInexistente()).isFalse();
+		assertThat(entrada.getUsuario()).isSameAs(usuario);
+		assertThat(cache.consultar("inexistente").isInexistente()).isTrue();
+		assertThat(cache.consultar("outro")).isNull();
+		assertThat(cache.getTaxaAcerto()).isEqualTo(2.0 / 3);
+	}
+
+	@Test
+	@DisplayName("Descartando a consulta ao banco iniciada antes de uma invalidação")
+	public void invalidarDuranteConsulta() {
+		CacheUsuarioAutenticado cache = new CacheUsuarioAutenticado(100, 300, 30);
+		long geracao = cache.getGeracao();
+
+		cache.invalidar("teste");
+		cache.armazenar("teste", new Usuario(), geracao);
+
+		assertThat(cache.consultar("teste")).isNull();
+	}
+
+	@Test
+	@DisplayName("Invalidando o login após uma alteração")
+	public void invalidarLogin() {
+		CacheUsuarioAutenticado cache = new CacheUsuarioAutenticado(100, 300, 30);
+
+		cache.armazenarInexistente("novo", cache.getGeracao());
+		cache.invalidar("novo");
+
+		assertThat(cache.consultar("novo")).isNull();
+	}
+
+	@Test
+	@DisplayName("Mantendo o cache dentro do tamanho máximo")
+	public void limitarTamanho() {
+		CacheUsuarioAutenticado cache = new CacheUsuarioAutenticado(10, 300, 30);
+
+		for (int i = 0; i < 100; i++) {
+			cache.armazenar("login-" + i, new Usuario(), cache.getGeracao());
+		}
+
+		assertThat(cache.getTamanho()).isLessThanOrEqualTo(10);
+	}
+}
@@ -0,0 +1,86 @@
+package br.com.api.configs.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.api.configs.security.CatalogoPermissoes.Permissoes;
+import br.com.api.configs.security.jwt.CacheTokenVerificado;
+import br.com.api.models.Perfil;
+
+@DisplayName("Testes unitários do catálogo de permissões")
+public class CatalogoPermissoesTest {
+
+	@Test
+	@DisplayName("Aplicando as heranças e permissões padrão sem perfis cadastrados")
+	public void permissoesPadrao() {
+		CatalogoPermissoes catalogo = new CatalogoPermissoes(null, new CacheTokenVerificado(100));
+
+		Permissoes administrador = catalogo.getPermissoes(Collections.singletonList(Perfil.PERFIL_ADMIN));
+		Permissoes usuario = catalogo.getPermissoes(Collections.singletonList(Perfil.PERFIL_USUARIO));
+
+		assertThat(administrador.possui(Perfil.PERFIL_USUARIO)).isTrue();
+		assertThat(administrador.possui(Perfil.PERMISSAO_USUARIOS_EDITAR)).isTrue();
+		assertThat(usuario.possui(Perfil.PERFIL_ADMIN)).isFalse();
+		assertThat(usuario.possui(Perfil.PERMISSAO_USUARIOS_EDITAR)).isFalse();
+		assertThat(catalogo.isPerfilConhecido("SUPORTE")).isFalse();
+	}
+
+	@Test
+	@DisplayName("Calculando o fechamento transitivo da hierarquia cadastrada")
+	public void herancaTransitiva() {
+		CatalogoPermissoes catalogo = new CatalogoPermissoes(null, new CacheTokenVerificado(100));
+		Perfil leitor = perfil("LEITOR", "relatorios:ler");
+		Perfil suporte = perfil("SUPORTE", "chamados:responder", leitor);
+		Perfil gerente = perfil("GERENTE", "relatorios:exportar", suporte);
+
+		catalogo.aplicar(Arrays.asList(leitor, suporte, gerente));
+		Permissoes permissoes = catalogo.getPermissoes(Collections.singletonList("GERENTE"));
+
+		assertThat(catalogo.isPerfilConhecido("GERENTE")).isTrue();
+		assertThat(permissoes.possui("SUPORTE")).isTrue();
+		assertThat(permissoes.possui("LEITOR")).isTrue();
+		assertThat(permissoes.possui("relatorios:ler")).isTrue();
+		assertThat(permissoes.possui("relatorios:exportar")).isTrue();
+		assertThat(permissoes.possui(Perfil.PERFIL_ADMIN)).isFalse();
+		assertThat(catalogo.getPermissoes(Collections.singletonList("LEITOR")).possui("chamados:responder"))
+				.isFalse();
+	}
+
+	@Test
+	@DisplayName("Ignorando ciclos na hierarquia")
+	public void cicloNaHierarquia() {
+		CatalogoPermissoes catalogo = new CatalogoPermissoes(null, new CacheTokenVerificado(100));
+		Perfil primeiro = perfil("PRIMEIRO", "primeiro:ler");
+		Perfil segundo = perfil("SEGUNDO", "segundo:ler", primeiro);
+		primeiro.getPerfisHerdados().add(segundo);
+
+		catalogo.aplicar(Arrays.asList(primeiro, segundo));
+
+		assertThat(catalogo.getPermissoes(Collections.singletonList("SEGUNDO")).possui("primeiro:ler")).isTrue();
+	}
+
+	@Test
+	@DisplayName("Descartando os tokens em cache apenas quando o catálogo muda")
+	public void detectarAlteracao() {
+		CatalogoPermissoes catalogo = new CatalogoPermissoes(null, new CacheTokenVerificado(100));
+		List<Perfil> perfis = Collections.singletonList(perfil("LEITOR", "relatorios:ler"));
+
+		assertThat(catalogo.aplicar(perfis)).isTrue();
+		assertThat(catalogo.aplicar(perfis)).isFalse();
+		assertThat(catalogo.aplicar(Collections.singletonList(perfil("LEITOR", "relatorios:exportar")))).isTrue();
+	}
+
+	private static Perfil perfil(String nome, String permissao, Perfil... herdados) {
+		Perfil perfil = new Perfil(nome);
+		perfil.setPermissoes(new HashSet<>(Collections.singletonList(permissao)));
+		perfil.setPerfisHerdados(new HashSet<>(Arrays.asList(herdados)));
+		return perfil;
+	}
+}
@@ -0,0 +1,68 @@
+package br.com.api.configs.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.api.exceptions.TentativasExcedidasException;
+
+@DisplayName("Testes unitários do controle de tentativas de login")
+public class ControleTentativasLoginTest {
+
+	@Test
+	@DisplayName("Recusando tentativas acima do limite por login")
+	public void limitarPorLogin() {
+		ControleTentativasLogin controle = new ControleTentativasLogin(3, 100, 0, 15);
+
+		for (int i = 0; i < 3; i++) {
+			controle.verificarTentativa("teste", "10.0.0." + i);
+		}
+
+		assertThrows(TentativasExcedidasException.class, () -> controle.verificarTentativa("teste", "10.0.0.9"));
+		assertDoesNotThrow(() -> controle.verificarTentativa("ricardo", "10.0.0.9"));
+		assertThat(controle.getRejeicoes()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Recusando tentativas acima do limite por IP")
+	public void limitarPorIp() {
+		ControleTentativasLogin controle = new ControleTentativasLogin(100, 2, 0, 15);
+
+		controle.verificarTentativa("teste1", "10.0.0.1");
+		controle.verificarTentativa("teste2", "10.0.0.1");
+
+		assertThrows(TentativasExcedidasException.class, () -> controle.verificarTentativa("teste3", "10.0.0.1"));
+		assertDoesNotThrow(() -> controle.verificarTentativa("teste3", "10.0.0.2"));
+	}
+
+	@Test
+	@DisplayName("Bloqueando o login após sucessivas falhas")
+	public void bloquearAposFalhas() {
+		ControleTentativasLogin controle = new ControleTentativasLogin(100, 100, 3, 15);
+
+		controle.registrarFalha("teste");
+		controle.registrarFalha("teste");
+		controle.verificarTentativa("teste", "10.0.0.1");
+		controle.registrarFalha("teste");
+
+		TentativasExcedidasException ex = assertThrows(TentativasExcedidasException.class,
+				() -> controle.verificarTentativa("teste", "10.0.0.1"));
+		assertThat(ex.getSegundosRetentativa()).isGreaterThan(0);
+	}
+
+	@Test
+	@DisplayName("Zerando as falhas após um login com sucesso")
+	public void zerarFalhasAposSucesso() {
+		ControleTentativasLogin controle = new ControleTentativasLogin(100, 100, 3, 15);
+
+		controle.registrarFalha("teste");
+		controle.registrarFalha("teste");
+		controle.registrarSucesso("teste");
+		controle.registrarFalha("teste");
+
+		assertDoesNotThrow(() -> controle.verificarTentativa("teste", "10.0.0.1"));
+	}
+}
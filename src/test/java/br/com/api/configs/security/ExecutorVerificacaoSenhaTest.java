@@ -0,0 +1,63 @@
+package br.com.api.configs.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.api.exceptions.SobrecargaException;
+
+@DisplayName("Testes unitários do executor de verificação de senha")
+public class ExecutorVerificacaoSenhaTest {
+
+	@Test
+	@DisplayName("Executando a verificação fora da thread da requisição")
+	public void executarVerificacao() throws Exception {
+		ExecutorVerificacaoSenha executor = new ExecutorVerificacaoSenha(1, 1, 1);
+
+		String thread = executor.executar(() -> Thread.currentThread().getName()).get();
+
+		assertThat(thread).startsWith("verificacao-senha-");
+		executor.encerrar();
+	}
+
+	@Test
+	@DisplayName("Recusando a verificação quando a fila está cheia")
+	public void recusarComFilaCheia() throws Exception {
+		ExecutorVerificacaoSenha executor = new ExecutorVerificacaoSenha(1, 1, 2);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CountDownLatch iniciou = new CountDownLatch(1);
+
+		CompletableFuture<Boolean> emExecucao = executor.executar(() -> {
+			iniciou.countDown();
+			return aguardar(liberar);
+		});
+		iniciou.await();
+		CompletableFuture<Boolean> naFila = executor.executar(() -> aguardar(liberar));
+
+		SobrecargaException ex = assertThrows(SobrecargaException.class, () -> executor.executar(() -> true));
+
+		assertThat(ex.getSegundosRetentativa()).isEqualTo(2);
+		assertThat(executor.getTamanhoFila()).isEqualTo(1);
+		assertThat(executor.getRejeicoes()).isEqualTo(1);
+
+		liberar.countDown();
+		assertThat(emExecucao.get()).isTrue();
+		assertThat(naFila.get()).isTrue();
+		executor.encerrar();
+	}
+
+	private static boolean aguardar(CountDownLatch latch) {
+		try {
+			latch.await();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
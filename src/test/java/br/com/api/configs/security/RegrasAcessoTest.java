@@ -0,0 +1,94 @@
+package br.com.api.configs.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+@DisplayName("Testes unitários das regras de acesso por rota")
+public class RegrasAcessoTest {
+
+	private final RegrasAcesso regras = new RegrasAcesso()
+			.liberar("/acesso/**")
+			.liberar(HttpMethod.POST, "/api/usuarios")
+			.exigir("ADMINISTRADOR", "/admin/**", "/actuator/**")
+			.exigir("USUARIO", "/api/**");
+
+	@Test
+	@DisplayName("Aplicando a regra do prefixo a todos os caminhos abaixo dele e ao próprio prefixo")
+	public void aplicarCuringa() {
+		assertThat(this.regras.consultar("GET", "/admin/perfis/1").getAutoridade()).isEqualTo("ADMINISTRADOR");
+		assertThat(this.regras.consultar("GET", "/admin").getAutoridade()).isEqualTo("ADMINISTRADOR");
+		assertThat(this.regras.consultar("GET", "/api/usuarios/1").getAutoridade()).isEqualTo("USUARIO");
+		assertThat(this.regras.consultar("POST", "/acesso/login").isLiberada()).isTrue();
+	}
+
+	@Test
+	@DisplayName("Priorizando o caminho exato do método da requisição")
+	public void priorizarCaminhoExatoEMetodo() {
+		assertThat(this.regras.consultar("POST", "/api/usuarios").isLiberada()).isTrue();
+		assertThat(this.regras.consultar("GET", "/api/usuarios").getAutoridade()).isEqualTo("USUARIO");
+		assertThat(this.regras.consultar("POST", "/api/usuarios/1").getAutoridade()).isEqualTo("USUARIO");
+	}
+
+	@Test
+	@DisplayName("Aplicando a regra exata também ao caminho com barra final")
+	public void aplicarRegraExataComBarraFinal() {
+		RegrasAcesso regrasLote = new RegrasAcesso()
+				.exigir("usuarios:editar", "/api/usuarios/lote")
+				.exigir("usuarios:excluir", "/api/usuarios/lote/excluir", "/api/usuarios/lote/restaurar")
+				.exigir("USUARIO", "/api/**");
+
+		assertThat(regrasLote.consultar("POST", "/api/usuarios/lote/").getAutoridade()).isEqualTo("usuarios:editar");
+		assertThat(regrasLote.consultar("POST", "/api/usuarios/lote/excluir/").getAutoridade())
+				.isEqualTo("usuarios:excluir");
+		assertThat(regrasLote.consultar("POST", "/api/usuarios/lote/restaurar/").getAutoridade())
+				.isEqualTo("usuarios:excluir");
+		assertThat(this.regras.consultar("POST", "/api/usuarios/").isLiberada()).isTrue();
+		assertThat(this.regras.consultar("GET", "/admin/").getAutoridade()).isEqualTo("ADMINISTRADOR");
+	}
+
+	@Test
+	@DisplayName("Diferenciando segmentos com o mesmo início")
+	public void diferenciarSegmentos() {
+		assertThat(this.regras.consultar("GET", "/apis/usuarios")).isNull();
+		assertThat(this.regras.consultar("GET", "/administracao")).isNull();
+	}
+
+	@Test
+	@DisplayName("Liberando as rotas sem regra")
+	public void liberarRotaSemRegra() {
+		assertThat(this.regras.consultar("GET", "/")).isNull();
+		assertThat(this.regras.consultar("GET", "/swagger-ui.html")).isNull();
+		assertThat(this.regras.consultar("GET", "")).isNull();
+	}
+
+	@Test
+	@DisplayName("Consultando pelo servlet path e path info da requisição")
+	public void consultarRequisicao() {
+		MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/usuarios/1");
+		request.setServletPath("/api");
+		request.setPathInfo("/usuarios/1");
+
+		assertThat(this.regras.consultar(request).getPadrao()).isEqualTo("/api/**");
+	}
+
+	@Test
+	@DisplayName("Mantendo a ordem de declaração das regras")
+	public void manterOrdemDeclaracao() {
+		assertThat(this.regras.getRegras()).extracting(RegrasAcesso.Regra::getPadrao).containsExactly("/acesso/**",
+				"/api/usuarios", "/admin/**", "/actuator/**", "/api/**");
+		assertThat(this.regras.getRegras().get(1).getMetodo()).isEqualTo(HttpMethod.POST);
+	}
+
+	@Test
+	@DisplayName("Rejeitando padrões de rota não suportados")
+	public void rejeitarPadraoNaoSuportado() {
+		assertThatThrownBy(() -> new RegrasAcesso().exigir("USUARIO", "/api/*/usuarios"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new RegrasAcesso().liberar("api/**")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,45 @@
+package br.com.api.configs.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.api.configs.security.jwt.CacheTokenVerificado;
+import br.com.api.models.Perfil;
+
+@DisplayName("Testes unitários do principal do usuário logado")
+public class UsuarioLogadoTest {
+
+	private final CatalogoPermissoes catalogo = new CatalogoPermissoes(null, new CacheTokenVerificado(100));
+
+	@Test
+	@DisplayName("Montando o principal apenas com id, login e permissões")
+	public void montarPrincipal() {
+		UsuarioLogado usuarioLogado = UsuarioLogado.de(1l, "teste",
+				this.catalogo.getPermissoes(Collections.singletonList(Perfil.PERFIL_ADMIN)));
+
+		assertThat(usuarioLogado.getId()).isEqualTo(1l);
+		assertThat(usuarioLogado.getName()).isEqualTo("teste");
+		assertThat(usuarioLogado.isAdministrador()).isTrue();
+		assertThat(usuarioLogado.possui(Perfil.PERFIL_USUARIO)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Compartilhando as autoridades entre usuários com a mesma combinação de perfis")
+	public void compartilharAutoridades() {
+		UsuarioLogado primeiro = UsuarioLogado.de(1l, "primeiro",
+				this.catalogo.getPermissoes(Arrays.asList(Perfil.PERFIL_USUARIO, Perfil.PERFIL_ADMIN)));
+		UsuarioLogado segundo = UsuarioLogado.de(2l, "segundo",
+				this.catalogo.getPermissoes(Arrays.asList(Perfil.PERFIL_ADMIN, Perfil.PERFIL_USUARIO)));
+		UsuarioLogado terceiro = UsuarioLogado.de(3l, "terceiro",
+				this.catalogo.getPermissoes(Collections.singletonList(Perfil.PERFIL_USUARIO)));
+
+		assertThat(primeiro.getAutoridades()).isSameAs(segundo.getAutoridades());
+		assertThat(terceiro.getAutoridades()).isNotSameAs(primeiro.getAutoridades());
+		assertThat(terceiro.isAdministrador()).isFalse();
+	}
+}
@@ -0,0 +1,71 @@
+package br.com.api.configs.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+@DisplayName("Testes unitários do cache de tokens verificados")
+public class CacheTokenVerificadoTest {
+
+	private static final long UMA_HORA = 60 * 60 * 1000;
+
+	@Test
+	@DisplayName("Consultando um token armazenado e um desconhecido")
+	public void consultarToken() {
+		CacheTokenVerificado cache = new CacheTokenVerificado(10);
+		Authentication auth = new UsernamePasswordAuthenticationToken("teste", "");
+
+		cache.armazenar("token-a", "teste", auth, new Date(System.currentTimeMillis() + UMA_HORA));
+
+		assertThat(cache.consultar("token-a")).isSameAs(auth);
+		assertThat(cache.consultar("token-b")).isNull();
+		assertThat(cache.getAcertos()).isEqualTo(1);
+		assertThat(cache.getFalhas()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Descartando o token expirado na consulta")
+	public void descartarTokenExpirado() {
+		CacheTokenVerificado cache = new CacheTokenVerificado(10);
+		Authentication auth = new UsernamePasswordAuthenticationToken("teste", "");
+
+		cache.armazenar("token-a", "teste", auth, new Date(System.currentTimeMillis() - 1));
+
+		assertThat(cache.consultar("token-a")).isNull();
+		assertThat(cache.getTamanho()).isZero();
+		assertThat(cache.getDespejos()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Respeitando o tamanho máximo do cache")
+	public void respeitarTamanhoMaximo() {
+		CacheTokenVerificado cache = new CacheTokenVerificado(10);
+		Date expiracao = new Date(System.currentTimeMillis() + UMA_HORA);
+
+		for (int i = 0; i < 50; i++) {
+			cache.armazenar("token-" + i, "teste", new UsernamePasswordAuthenticationToken("teste", ""), expiracao);
+		}
+
+		assertThat(cache.getTamanho()).isLessThanOrEqualTo(10);
+		assertThat(cache.getDespejos()).isGreaterThan(0);
+	}
+
+	@Test
+	@DisplayName("Invalidando os tokens de um login")
+	public void invalidarPorLogin() {
+		CacheTokenVerificado cache = new CacheTokenVerificado(10);
+		Date expiracao = new Date(System.currentTimeMillis() + UMA_HORA);
+
+		cache.armazenar("token-a", "teste", new UsernamePasswordAuthenticationToken("teste", ""), expiracao);
+		cache.armazenar("token-b", "ricardo", new UsernamePasswordAuthenticationToken("ricardo", ""), expiracao);
+		cache.invalidarPorLogin("teste");
+
+		assertThat(cache.consultar("token-a")).isNull();
+		assertThat(cache.consultar("token-b")).isNotNull();
+	}
+}
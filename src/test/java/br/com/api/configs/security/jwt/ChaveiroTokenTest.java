@@ -0,0 +1,143 @@
+package br.com.api.configs.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.api.configs.security.jwt.ChaveiroToken.ChaveAssinatura;
+import br.com.api.models.ChaveJwt;
+import br.com.api.repositories.ChaveJwtRepository;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Testes do chaveiro dos tokens guardado no banco")
+public class ChaveiroTokenTest {
+
+	private static final long UMA_HORA = 60 * 60 * 1000;
+
+	@Autowired
+	private ChaveJwtRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	@DisplayName("Publicando a chave atual e a seguinte no JWKS")
+	@SuppressWarnings("unchecked")
+	public void publicarJwks() {
+		ChaveiroToken chaveiro = this.iniciarChaveiro("RS256", "segredo");
+		List<Map<String, Object>> chaves = (List<Map<String, Object>>) chaveiro.getJwks().get("keys");
+
+		assertThat(chaves).hasSize(2);
+		assertThat(chaves).extracting(jwk -> jwk.get("kid")).contains(chaveiro.getChaveAtual().getKid());
+		assertThat(chaves.get(0)).containsEntry("kty", "RSA").containsEntry("alg", "RS256")
+				.containsEntry("e", "AQAB").containsKey("n");
+	}
+
+	@Test
+	@DisplayName("Rotacionando a chave e mantendo a anterior até a expiração dos seus tokens")
+	public void rotacionarChave() {
+		ChaveiroToken chaveiro = this.iniciarChaveiro("RS256", "segredo");
+		ChaveAssinatura anterior = chaveiro.getChaveAtual();
+		String versaoAnterior = chaveiro.getVersaoJwks();
+		long agora = System.currentTimeMillis();
+
+		chaveiro.verificarRotacao(agora + 24 * UMA_HORA);
+
+		assertThat(chaveiro.getChaveAtual().getKid()).isNotEqualTo(anterior.getKid());
+		assertThat(chaveiro.getChavePublica(anterior.getKid())).isNotNull();
+		assertThat(chaveiro.getVersaoJwks()).isNotEqualTo(versaoAnterior);
+
+		chaveiro.verificarRotacao(agora + 25 * UMA_HORA + 1);
+
+		assertThat(this.repository.existsById(anterior.getKid())).isFalse();
+		assertThat(chaveiro.getChavePublica(anterior.getKid())).isNull();
+		assertThat(chaveiro.getChavePublica(chaveiro.getChaveAtual().getKid())).isNotNull();
+	}
+
+	@Test
+	@DisplayName("Consultando uma chave com kid desconhecido")
+	public void consultarKidDesconhecido() {
+		ChaveiroToken chaveiro = this.iniciarChaveiro("RS256", "segredo");
+
+		assertThat(chaveiro.getChavePublica("desconhecido")).isNull();
+		assertThat(chaveiro.getChavePublica(null)).isNull();
+	}
+
+	@Test
+	@DisplayName("Assinando com as mesmas chaves em várias instâncias e depois do reinício")
+	public void compartilharChavesEntreInstancias() {
+		ChaveiroToken instanciaUm = this.iniciarChaveiro("RS256", "segredo");
+		ChaveiroToken instanciaDois = this.iniciarChaveiro("RS256", "segredo");
+		String kid = instanciaUm.getChaveAtual().getKid();
+
+		assertThat(instanciaDois.getChaveAtual().getKid()).isEqualTo(kid);
+		assertThat(instanciaDois.getChavePublica(kid)).isEqualTo(instanciaUm.getChavePublica(kid));
+		assertThat(instanciaDois.getVersaoJwks()).isEqualTo(instanciaUm.getVersaoJwks());
+
+		ChaveiroToken reiniciada = this.iniciarChaveiro("RS256", "segredo");
+		assertThat(reiniciada.getChaveAtual().getKid()).isEqualTo(kid);
+		assertThat(this.repository.count()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Rotacionando uma única vez quando várias instâncias verificam ao mesmo tempo")
+	public void rotacionarUmaVezEntreInstancias() {
+		ChaveiroToken instanciaUm = this.iniciarChaveiro("RS256", "segredo");
+		ChaveiroToken instanciaDois = this.iniciarChaveiro("RS256", "segredo");
+		long rotacao = System.currentTimeMillis() + 24 * UMA_HORA;
+
+		instanciaUm.verificarRotacao(rotacao);
+		instanciaDois.verificarRotacao(rotacao);
+
+		assertThat(instanciaDois.getChaveAtual().getKid()).isEqualTo(instanciaUm.getChaveAtual().getKid());
+		assertThat(this.repository.findAll()).filteredOn(chave -> chave.getDataAposentadoria() != null).hasSize(1);
+		assertThat(this.repository.count()).isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("Guardando a chave privada cifrada com o segredo configurado")
+	public void cifrarChavePrivada() {
+		ChaveiroToken chaveiro = this.iniciarChaveiro("RS256", "segredo");
+		ChaveAssinatura atual = chaveiro.getChaveAtual();
+		ChaveJwt registro = this.repository.findById(atual.getKid()).get();
+
+		assertThat(registro.getChavePrivada())
+				.isNotEqualTo(Base64.getEncoder().encodeToString(atual.getPrivada().getEncoded()));
+		assertThatThrownBy(() -> this.iniciarChaveiro("RS256", "outro segredo"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	@DisplayName("Sem chaves RSA nem JWKS quando os tokens usam o HS256")
+	@SuppressWarnings("unchecked")
+	public void ignorarChavesComHs256() {
+		ChaveiroToken chaveiro = this.iniciarChaveiro("HS256", "segredo");
+
+		assertThat(chaveiro.isAtivo()).isFalse();
+		assertThat(chaveiro.getChaveAtual()).isNull();
+		assertThat((List<Object>) chaveiro.getJwks().get("keys")).isEmpty();
+		assertThat(this.repository.count()).isZero();
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private ChaveiroToken iniciarChaveiro(String algoritmo, String segredo) {
+		ChaveiroToken chaveiro = new ChaveiroToken(this.repository, this.transactionManager, algoritmo, 2048, 24, 60,
+				segredo);
+		chaveiro.carregar();
+		return chaveiro;
+	}
+}
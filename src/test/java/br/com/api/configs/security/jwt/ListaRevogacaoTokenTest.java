@@ -0,0 +1,55 @@
+package br.com.api.configs.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testes unitários da lista de tokens revogados")
+public class ListaRevogacaoTokenTest {
+
+	private static final long UMA_HORA = 60 * 60 * 1000;
+
+	@Test
+	@DisplayName("Consultando tokens revogados e não revogados")
+	public void consultarRevogacao() {
+		ListaRevogacaoToken lista = new ListaRevogacaoToken(1000);
+
+		lista.revogar("jti-revogado", new Date(System.currentTimeMillis() + UMA_HORA));
+
+		assertThat(lista.isRevogado("jti-revogado")).isTrue();
+		assertThat(lista.isRevogado("jti-valido")).isFalse();
+		assertThat(lista.isRevogado(null)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Removendo as revogações de tokens já expirados")
+	public void removerExpirados() {
+		ListaRevogacaoToken lista = new ListaRevogacaoToken(1000);
+
+		lista.revogar("jti-expirado", new Date(System.currentTimeMillis() - 1));
+		lista.revogar("jti-ativo", new Date(System.currentTimeMillis() + UMA_HORA));
+		lista.removerExpirados();
+
+		assertThat(lista.getTamanho()).isEqualTo(1);
+		assertThat(lista.isRevogado("jti-expirado")).isFalse();
+		assertThat(lista.isRevogado("jti-ativo")).isTrue();
+	}
+
+	@Test
+	@DisplayName("Mantendo as revogações acima da capacidade do filtro")
+	public void revogarAcimaDaCapacidade() {
+		ListaRevogacaoToken lista = new ListaRevogacaoToken(10);
+		Date expiracao = new Date(System.currentTimeMillis() + UMA_HORA);
+
+		for (int i = 0; i < 500; i++) {
+			lista.revogar("jti-" + i, expiracao);
+		}
+
+		for (int i = 0; i < 500; i++) {
+			assertThat(lista.isRevogado("jti-" + i)).isTrue();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package br.com.api.configs.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.api.exceptions.AuthenticationJwtException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+@DisplayName("Testes unitários do verificador HS256")
+public class VerificadorHs256Test {
+
+	private static final byte[] CHAVE = "secret".getBytes();
+
+	private final VerificadorHs256 verificador = new VerificadorHs256(CHAVE);
+
+	@Test
+	@DisplayName("Lendo as claims de um token emitido pelo jjwt")
+	public void verificarToken() {
+		Date expiracao = new Date(System.currentTimeMillis() + 60000);
+		String token = criarToken(CHAVE, expiracao);
+
+		ClaimsToken claims = this.verificador.verificar(token);
+
+		assertThat(claims.getLogin()).isEqualTo("teste");
+		assertThat(claims.getIdUsuario()).isEqualTo(7l);
+		assertThat(claims.getVersao()).isEqualTo(2);
+		assertThat(claims.getJti()).isEqualTo("jti-teste");
+		assertThat(claims.getPerfis()).containsExactly("USUARIO", "ADMINISTRADOR");
+		assertThat(claims.getExpiracao()).isEqualTo(expiracao.getTime() / 1000 * 1000);
+	}
+
+	@Test
+	@DisplayName("Falha ao verificar token assinado com outra chave")
+	public void erroAoVerificarAssinatura() {
+		String token = criarToken("outra".getBytes(), new Date(System.currentTimeMillis() + 60000));
+
+		assertThrows(AuthenticationJwtException.class, () -> this.verificador.verificar(token));
+	}
+
+	@Test
+	@DisplayName("Falha ao verificar token com payload alterado")
+	public void erroAoVerificarPayloadAlterado() {
+		String token = criarToken(CHAVE, new Date(System.currentTimeMillis() + 60000));
+		String[] partes = token.split("\\.");
+		String payloadAlterado = partes[1].substring(0, partes[1].length() - 2) + "AA";
+
+		assertThrows(AuthenticationJwtException.class,
+				() -> this.verificador.verificar(partes[0] + "." + payloadAlterado + "." + partes[2]));
+	}
+
+	@Test
+	@DisplayName("Delegando ao jjwt os tokens fora do formato esperado")
+	public void delegarTokenDesconhecido() {
+		String token = Jwts.builder().setSubject("teste").setHeaderParam("typ", "JWT")
+				.signWith(SignatureAlgorithm.HS256, CHAVE).compact();
+
+		assertThat(this.verificador.verificar(token)).isNull();
+		assertThat(this.verificador.verificar("token.invalido")).isNull();
+	}
+
+	private static String criarToken(byte[] chave, Date expiracao) {
+		Claims claims = Jwts.claims().setSubject("teste");
+		claims.put("roles", Arrays.asList("USUARIO", "ADMINISTRADOR"));
+		claims.put("id", 7l);
+		claims.put("ver", 2);
+
+		return Jwts.builder().setClaims(claims).setId("jti-teste").setIssuedAt(new Date()).setExpiration(expiracao)
+				.signWith(SignatureAlgorithm.HS256, chave).compact();
+	}
+}
@@ -4,6 +4,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,8 +25,11 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import br.com.api.configs.security.CacheUsuarioAutenticado;
+import br.com.api.configs.security.RegrasAcesso;
 import br.com.api.constants.UrlConstantes;
 import br.com.api.controllers.base.AuthController;
+import br.com.api.models.Perfil;
 import br.com.api.models.RespostaLoginDTO;
 
 @ActiveProfiles("test")
@@ -39,37 +46,142 @@ public class AuthControllerTest {
 	@Autowired
 	private UsuarioController usuarioController;
 
+	@Autowired
+	private IntrospeccaoController introspeccaoController;
+
+	@Autowired
+	private RegrasAcesso regrasAcesso;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheUsuarioAutenticado cacheUsuario;
+
 	@BeforeAll
 	@DisplayName("Criando usuário para ser usado no login")
 	public void setUp() throws Exception {
 		this.mockMvc = MockMvcBuilders.standaloneSetup(usuarioController).build();
 
-		String json = "{ \"nome\": \"Teste\"," + "  \"login\": \"teste\"," + " \"email\": \"teste@gmail.com\","
+		String json = "{ \"nome\": \"Acesso\"," + "  \"login\": \"acesso\"," + " \"email\": \"acesso@gmail.com\","
 				+ " \"senha\": \"123456\"," + " \"confirmacaoSenha\": \"123456\" }";
 
 		this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS).contentType(MediaType.APPLICATION_JSON)
 				.content(json)).andExpect(MockMvcResultMatchers.status().isOk());
 
-		this.mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+		this.mockMvc = MockMvcBuilders.standaloneSetup(controller, introspeccaoController).build();
 	}
 
 	@Test
 	@DisplayName("Fazendo login")
 	public void login() throws Exception {
-		String json = "{ \"login\": \"teste\", \"senha\": \"123456\" }";
+		String json = "{ \"login\": \"acesso\", \"senha\": \"123456\" }";
+
+		MvcResult assincrono = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.ACESSO_LIBERADO + "/login")
+				.contentType(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
 
-		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.ACESSO_LIBERADO + "/login")
-				.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk())
-				.andReturn();
+		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(assincrono))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
 		
 		String conteudo = resposta.getResponse().getContentAsString();
 		RespostaLoginDTO respostaDTO = converterJsonEmRespostaLoginDTO(conteudo);
 		
-		assertThat(respostaDTO.getLogin()).isEqualTo("teste");
+		assertThat(respostaDTO.getLogin()).isEqualTo("acesso");
 		assertThat(respostaDTO.getToken()).isNotNull();
 		assertThat(respostaDTO.getToken()).isNotBlank();
 	}
-	
+
+	@Test
+	@DisplayName("Sem chaves públicas para publicar com os tokens em HS256")
+	public void listarChavesPublicasComHs256() throws Exception {
+		this.mockMvc.perform(MockMvcRequestBuilders.get(UrlConstantes.ACESSO_LIBERADO + "/.well-known/jwks.json"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+	}
+
+	@Test
+	@DisplayName("Fazendo login com uma única consulta do usuário")
+	public void loginComUmaConsulta() throws Exception {
+		Statistics estatisticas = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.cacheUsuario.limpar();
+		estatisticas.clear();
+
+		this.fazerLogin("acesso", "123456");
+
+		// O usuario e os seus perfis na mesma consulta
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+
+		// O segundo login encontra o usuario no cache
+		this.fazerLogin("acesso", "123456");
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Consultando o banco uma única vez para um login inexistente")
+	public void loginInexistenteEmCache() throws Exception {
+		Statistics estatisticas = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+
+		for (int i = 0; i < 3; i++) {
+			String json = "{ \"login\": \"inexistente\", \"senha\": \"123456\" }";
+			MvcResult assincrono = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.ACESSO_LIBERADO + "/login")
+					.contentType(MediaType.APPLICATION_JSON).content(json)).andReturn();
+			assertThat(assincrono.getAsyncResult()).isInstanceOf(Exception.class);
+		}
+
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Verificando vários tokens em uma única requisição")
+	public void introspectarTokens() throws Exception {
+		String token = converterJsonEmRespostaLoginDTO(
+				this.fazerLogin("acesso", "123456").getResponse().getContentAsString()).getToken();
+		String json = "{ \"tokens\": [\"" + token + "\", \"invalido\", \"" + token + "\"] }";
+
+		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.INTROSPECCAO)
+				.contentType(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].valido").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].login").value("acesso"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].autoridades[0]").value("USUARIO"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].expiracao").isNumber())
+				.andExpect(MockMvcResultMatchers.jsonPath("$[1].valido").value(false))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[1].login").doesNotExist())
+				.andExpect(MockMvcResultMatchers.jsonPath("$[2].valido").value(true)).andReturn();
+
+		assertThat(resposta.getResponse().getHeader("Cache-Control")).startsWith("max-age=").endsWith(", private");
+		assertThat(resposta.getResponse().getHeader("Vary")).contains("Authorization").contains("X-Api-Key");
+	}
+
+	@Test
+	@DisplayName("Exigindo um cliente administrador na introspecção")
+	public void exigirAdministradorNaIntrospeccao() {
+		assertThat(this.regrasAcesso.consultar("POST", UrlConstantes.INTROSPECCAO).getAutoridade())
+				.isEqualTo(Perfil.PERFIL_ADMIN);
+		assertThat(this.regrasAcesso.consultar("POST", UrlConstantes.ACESSO_LIBERADO + "/introspeccao").isLiberada())
+				.isTrue(); // A rota antiga deixou de existir, o /acesso continua liberado
+	}
+
+	@Test
+	@DisplayName("Recusando a introspecção sem tokens")
+	public void introspectarSemTokens() throws Exception {
+		this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.INTROSPECCAO)
+				.contentType(MediaType.APPLICATION_JSON).content("{ \"tokens\": [] }"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	private MvcResult fazerLogin(String login, String senha) throws Exception {
+		String json = "{ \"login\": \"" + login + "\", \"senha\": \"" + senha + "\" }";
+
+		MvcResult assincrono = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.ACESSO_LIBERADO + "/login")
+				.contentType(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+		return this.mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(assincrono))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+	}
 
 	public static RespostaLoginDTO converterJsonEmRespostaLoginDTO(String json) {
 		RespostaLoginDTO respostaDTO = new RespostaLoginDTO();
@@ -0,0 +1,100 @@
+package br.com.api.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import br.com.api.configs.security.IndiceChaveApi;
+import br.com.api.constants.UrlConstantes;
+import br.com.api.dtos.ChaveApiDTO;
+
+@ActiveProfiles("test")
+@TestInstance(Lifecycle.PER_CLASS)
+@DisplayName("Teste de integração das chaves de API")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ChaveApiControllerTest {
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	@Autowired
+	private IndiceChaveApi indiceChaveApi;
+
+	private String token;
+
+	@BeforeAll
+	@DisplayName("Criando usuário e fazendo login para emitir as chaves")
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		String json = "{ \"nome\": \"Servico\"," + "  \"login\": \"servico\"," + " \"email\": \"servico@gmail.com\","
+				+ " \"senha\": \"123456\"," + " \"confirmacaoSenha\": \"123456\" }";
+		assertThat(this.rest.postForEntity(UrlConstantes.USUARIOS, this.json(json, null), String.class)
+				.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		ResponseEntity<Map> login = this.rest.postForEntity(UrlConstantes.ACESSO_LIBERADO + "/login",
+				this.json("{ \"login\": \"servico\", \"senha\": \"123456\" }", null), Map.class);
+		this.token = (String) login.getBody().get("token");
+	}
+
+	@Test
+	@DisplayName("Autenticando com a chave emitida até a sua revogação")
+	public void autenticarComChave() {
+		ChaveApiDTO emitida = this.rest.postForObject(UrlConstantes.CHAVES_API,
+				this.json("{ \"nome\": \"integracao\", \"diasValidade\": 30 }", this.token), ChaveApiDTO.class);
+
+		assertThat(emitida.getChave()).startsWith(emitida.getPrefixo());
+		assertThat(emitida.getDataExpiracao()).isNotNull();
+		assertThat(this.indiceChaveApi.autenticar(emitida.getChave()).getName()).isEqualTo("servico");
+
+		HttpHeaders cabecalhos = new HttpHeaders();
+		cabecalhos.set(IndiceChaveApi.CABECALHO, emitida.getChave());
+		assertThat(this.rest.exchange(UrlConstantes.USUARIOS, HttpMethod.GET, new HttpEntity<>(cabecalhos), String.class)
+				.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		ResponseEntity<ChaveApiDTO[]> chaves = this.rest.exchange(UrlConstantes.CHAVES_API, HttpMethod.GET,
+				new HttpEntity<>(cabecalhos), ChaveApiDTO[].class);
+		assertThat(chaves.getBody()).extracting(ChaveApiDTO::getId).contains(emitida.getId());
+		assertThat(chaves.getBody()).extracting(ChaveApiDTO::getChave).containsOnlyNulls();
+
+		assertThat(this.rest.exchange(UrlConstantes.CHAVES_API + "/" + emitida.getId(), HttpMethod.DELETE,
+				new HttpEntity<>(cabecalhos), String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		assertThat(this.indiceChaveApi.autenticar(emitida.getChave())).isNull();
+		assertThat(this.rest.exchange(UrlConstantes.USUARIOS, HttpMethod.GET, new HttpEntity<>(cabecalhos), String.class)
+				.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+	}
+
+	@Test
+	@DisplayName("Recusando chave desconhecida")
+	public void recusarChaveDesconhecida() {
+		HttpHeaders cabecalhos = new HttpHeaders();
+		cabecalhos.set(IndiceChaveApi.CABECALHO, IndiceChaveApi.gerarChave());
+
+		assertThat(this.rest.exchange(UrlConstantes.USUARIOS, HttpMethod.GET, new HttpEntity<>(cabecalhos), String.class)
+				.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+	}
+
+	private HttpEntity<String> json(String json, String token) {
+		HttpHeaders cabecalhos = new HttpHeaders();
+		cabecalhos.setContentType(MediaType.APPLICATION_JSON);
+		if (token != null)
+			cabecalhos.setBearerAuth(token);
+		return new HttpEntity<>(json, cabecalhos);
+	}
+}
@@ -0,0 +1,97 @@
+package br.com.api.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.api.constants.UrlConstantes;
+import br.com.api.dtos.UsuarioDTO;
+import br.com.api.models.Perfil;
+import br.com.api.services.UsuarioService;
+
+@ActiveProfiles("test")
+@TestInstance(Lifecycle.PER_CLASS)
+@DisplayName("Teste de integração da exportação dos usuários")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ExportacaoControllerTest {
+
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ExportacaoController controller;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Long idExcluido;
+
+	@BeforeAll
+	@DisplayName("Cadastrando um usuário ativo e um excluído")
+	public void setUp() {
+		this.mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		this.usuarioService.criarUsuario(new UsuarioDTO("Exportado", "exportado", "exportado@gmail.com", "123456", "123456"));
+		this.idExcluido = this.usuarioService
+				.criarUsuario(new UsuarioDTO("Excluido", "excluido", "excluido@gmail.com", "123456", "123456")).getId();
+		this.usuarioService.excluir(this.idExcluido, null);
+	}
+
+	@Test
+	@DisplayName("Exportando os usuários ativos em NDJSON sem carregar entidades")
+	public void exportarUsuarios() throws Exception {
+		Statistics estatisticas = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+
+		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.get(UrlConstantes.EXPORTACAO + "/usuarios"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+				.andReturn();
+
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+
+		String conteudo = resposta.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertThat(conteudo).endsWith("\n");
+
+		ObjectMapper mapper = new ObjectMapper();
+		Map<String, JsonNode> usuariosPorLogin = new HashMap<>();
+		for (String linha : conteudo.split("\n")) {
+			JsonNode usuario = mapper.readTree(linha);
+			usuariosPorLogin.put(usuario.get("login").asText(), usuario);
+		}
+
+		JsonNode exportado = usuariosPorLogin.get("exportado");
+		assertThat(exportado.get("email").asText()).isEqualTo("exportado@gmail.com");
+		assertThat(exportado.get("perfis").size()).isEqualTo(1);
+		assertThat(exportado.get("perfis").get(0).asText()).isEqualTo(Perfil.PERFIL_USUARIO);
+		assertThat(exportado.has("senha")).isFalse();
+		assertThat(usuariosPorLogin).doesNotContainKey("excluido");
+	}
+}
@@ -3,7 +3,16 @@ package br.com.api.controllers;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.envers.AuditReader;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
@@ -22,11 +31,15 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import br.com.api.constants.UrlConstantes;
 import br.com.api.dtos.PerfilDTO;
 import br.com.api.models.Perfil;
+import br.com.api.models.Usuario;
+import br.com.api.repositories.UsuarioRepository;
+import br.com.api.services.PerfilService;
 
 @ActiveProfiles("test")
 @TestInstance(Lifecycle.PER_CLASS)
@@ -43,6 +56,15 @@ public class PerfilControllerTest {
 	@Autowired
 	private UsuarioController usuarioController;
 
+	@Autowired
+	private PerfilService perfilService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
 	@BeforeAll
 	@DisplayName("Cadastrando um usuário para ser adicionado/removido os perfis e iniciando com um perfil salvo no banco")
 	public void setUp() throws Exception {
@@ -117,8 +139,98 @@ public class PerfilControllerTest {
 		assertThat(dto.getLogin()).isEqualTo("teste");
 		assertThat(dto.getPerfis()).isEmpty();
 	}
+
+
+	@Test
+	@Order(4)
+	@DisplayName("Cadastrando usuário sem consultar os perfis")
+	public void cadastrarUsuarioSemConsultarPerfis() throws Exception {
+		Statistics estatisticas = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+
+		String json = "{ \"nome\": \"Catalogo\"," + "  \"login\": \"catalogo\"," + " \"email\": \"catalogo@gmail.com\","
+				+ " \"senha\": \"123456\"," + " \"confirmacaoSenha\": \"123456\" }";
+
+		MockMvcBuilders.standaloneSetup(usuarioController).build().perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS)
+				.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk());
+
+		assertThat(estatisticas.getQueries()).noneMatch(consulta -> consulta.contains("Perfil"));
+		assertThat(estatisticas.getEntityStatistics(Perfil.class.getName()).getLoadCount()).isZero();
+	}
+
+	@Test
+	@Order(5)
+	@DisplayName("Listando os perfis sem consultar o banco")
+	public void listarPerfisSemConsulta() throws Exception {
+		Statistics estatisticas = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+
+		PerfilDTO listagem = this.perfilService.listarPerfisAtivos();
+
+		assertThat(this.perfilService.listarPerfisAtivos()).isSameAs(listagem);
+		assertThat(listagem.getPerfis()).containsExactly(Perfil.PERFIL_ADMIN, Perfil.PERFIL_USUARIO);
+		assertThat(estatisticas.getPrepareStatementCount()).isZero();
+	}
 	
-	
+	@Test
+	@Order(6)
+	@DisplayName("Adicionando e removendo um perfil de vários usuários em lote")
+	public void alterarPerfisEmLote() throws Exception {
+		MockMvc mockMvcUsuario = MockMvcBuilders.standaloneSetup(usuarioController).build();
+		for (String login : Arrays.asList("loteum", "lotedois")) {
+			String json = "{ \"nome\": \"Lote\", \"login\": \"" + login + "\", \"email\": \"" + login + "@gmail.com\","
+					+ " \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" }";
+			mockMvcUsuario.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS)
+					.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk());
+		}
+		Usuario loteUm = this.usuarioRepository.findDistinctByLoginAndAtivo("loteum", true).get();
+
+		String json = "{ \"idsUsuarios\": [" + loteUm.getId() + "], \"logins\": [\"lotedois\", \"naoexiste\"],"
+				+ " \"perfis\": [\"ADMINISTRADOR\"] }";
+		JsonNode inclusao = this.alterarPerfisEmLote("/lote/adicionar", json);
+
+		assertThat(inclusao.get("usuariosAlterados").asInt()).isEqualTo(2);
+		assertThat(inclusao.get("vinculosAlterados").asInt()).isEqualTo(2);
+		assertThat(inclusao.get("naoEncontrados").get(0).asText()).isEqualTo("naoexiste");
+
+		// Quem já tem o perfil não é alterado
+		JsonNode repeticao = this.alterarPerfisEmLote("/lote/adicionar", json);
+		assertThat(repeticao.get("usuariosAlterados").asInt()).isZero();
+		assertThat(repeticao.get("vinculosAlterados").asInt()).isZero();
+
+		Usuario alterado = this.usuarioRepository.findDistinctByLoginAndAtivo("loteum", true).get();
+		assertThat(alterado.getListaPerfis()).extracting(Perfil::getNome).contains(Perfil.PERFIL_ADMIN);
+		assertThat(alterado.getVersaoToken()).isEqualTo(1);
+
+		JsonNode remocao = this.alterarPerfisEmLote("/lote/remover", json);
+		assertThat(remocao.get("usuariosAlterados").asInt()).isEqualTo(2);
+		assertThat(remocao.get("vinculosAlterados").asInt()).isEqualTo(2);
+
+		// O Envers enxerga cada alteração em massa como uma revisão com os perfis daquele momento
+		EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+		try {
+			AuditReader auditoria = AuditReaderFactory.get(entityManager);
+			List<Number> revisoes = auditoria.getRevisions(Usuario.class, loteUm.getId());
+			assertThat(revisoes).hasSize(3);
+
+			Usuario comAdministrador = auditoria.find(Usuario.class, loteUm.getId(), revisoes.get(1));
+			assertThat(comAdministrador.getListaPerfis()).extracting(Perfil::getNome)
+					.containsExactlyInAnyOrder(Perfil.PERFIL_USUARIO, Perfil.PERFIL_ADMIN);
+			Usuario semAdministrador = auditoria.find(Usuario.class, loteUm.getId(), revisoes.get(2));
+			assertThat(semAdministrador.getListaPerfis()).extracting(Perfil::getNome)
+					.containsExactly(Perfil.PERFIL_USUARIO);
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	private JsonNode alterarPerfisEmLote(String caminho, String json) throws Exception {
+		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.PERFIS + caminho)
+				.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn();
+		return new ObjectMapper().readTree(resposta.getResponse().getContentAsString());
+	}
+
 	private PerfilDTO converterJsonEmPerfilDTO(String json) {
 		PerfilDTO perfil = new PerfilDTO();
 		ObjectMapper mapper = new ObjectMapper();
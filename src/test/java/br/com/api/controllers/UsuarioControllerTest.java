@@ -3,7 +3,18 @@ package br.com.api.controllers;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.envers.AuditReader;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
@@ -15,20 +26,27 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import br.com.api.constants.ExceptionsConstantes;
 import br.com.api.constants.UrlConstantes;
+import br.com.api.constants.ValidacaoConstantes;
+import br.com.api.controllers.base.ControllerGenerico;
 import br.com.api.dtos.UsuarioDTO;
 import br.com.api.models.Usuario;
 import br.com.api.repositories.UsuarioRepository;
-import br.com.api.utils.Utils;
+import br.com.api.services.SenhaService;
 
 @ActiveProfiles("test")
 @TestInstance(Lifecycle.PER_CLASS)
@@ -47,6 +65,15 @@ public class UsuarioControllerTest {
 	@Autowired
 	private UsuarioRepository repository;
 
+	@Autowired
+	private SenhaService senhaService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	@BeforeAll
 	@DisplayName("Preparando para iniciar os testes com um usuário salvo no banco")
 	public void setUp() throws Exception {
@@ -90,6 +117,7 @@ public class UsuarioControllerTest {
 	@Order(2)
 	@DisplayName("Consultando usuário existente no banco")
 	public void consultar() throws Exception {
+		Statistics estatisticas = this.getEstatisticas();
 		MvcResult resposta = this.mockMvc
 				.perform(MockMvcRequestBuilders.get(UrlConstantes.USUARIOS + "/" + this.usuario.getId()))
 				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
@@ -101,6 +129,11 @@ public class UsuarioControllerTest {
 		assertThat(dto.getNome()).isEqualTo("Teste");
 		assertThat(dto.getLogin()).isEqualTo("teste");
 		assertThat(dto.getEmail()).isEqualTo("teste@gmail.com");
+
+		// Apenas as colunas do DTO, sem os perfis e sem entidades na sessão
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(estatisticas.getCollectionLoadCount()).isZero();
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
 	}
 	
 	@Test
@@ -108,6 +141,7 @@ public class UsuarioControllerTest {
 	@DisplayName("Atualizando o nome do usuário")
 	public void atualizarNome() throws Exception {
 		String json = "{ \"nome\": \"Teste Atualizado\" }";
+		Statistics estatisticas = this.getEstatisticas();
 		
 		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.put(UrlConstantes.USUARIOS + "/" + this.usuario.getId())
 				.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk())
@@ -120,6 +154,11 @@ public class UsuarioControllerTest {
 		assertThat(dto.getNome()).isEqualTo("Teste Atualizado");
 		assertThat(dto.getLogin()).isEqualTo("teste");
 		assertThat(dto.getEmail()).isEqualTo("teste@gmail.com");
+
+		// Consulta do usuário, um único update e os três comandos da auditoria. Login e email não mudaram,
+		// então a unicidade nem é consultada, e os perfis não são carregados
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(5);
+		assertThat(estatisticas.getCollectionLoadCount()).isZero();
 	}
 	
 	@Test
@@ -137,7 +176,7 @@ public class UsuarioControllerTest {
 		
 		Usuario usuario = this.repository.findById(dto.getId()).get();
 		
-		boolean isSenhaAlterada = Utils.isSenhasIdenticas("12345678", usuario.getSenha());
+		boolean isSenhaAlterada = this.senhaService.isSenhaCorreta("12345678", usuario.getSenha());
 
 		assertThat(dto.getId()).isEqualTo(this.usuario.getId());
 		assertThat(isSenhaAlterada).isTrue();
@@ -147,6 +186,7 @@ public class UsuarioControllerTest {
 	@Order(5)
 	@DisplayName("listando os usuários ativos")
 	public void listarUsuariosAtivos() throws Exception {
+		Statistics estatisticas = this.getEstatisticas();
 		MvcResult resposta = this.mockMvc
 				.perform(MockMvcRequestBuilders.get(UrlConstantes.USUARIOS))
 				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
@@ -155,6 +195,11 @@ public class UsuarioControllerTest {
 		UsuarioDTO[] usuarios = converterJsonEmListaUsuarioDTO(conteudo);
 		
 		assertThat(usuarios.length).isEqualTo(2);
+
+		// Uma consulta para a página inteira, projetada direto no DTO
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(estatisticas.getCollectionLoadCount()).isZero();
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
 	}
 	
 	@Test
@@ -170,6 +215,269 @@ public class UsuarioControllerTest {
 		assertThat(qdtUsuariosAtivos).isEqualTo(1);
 	}
 
+	@Test
+	@Order(7)
+	@DisplayName("Salvando um lote com o resultado de cada item")
+	public void salvarLote() throws Exception {
+		String json = "[" 
+				+ "{ \"nome\": \"Lote Um\", \"login\": \"loteum\", \"email\": \"loteum@gmail.com\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" },"
+				+ "{ \"nome\": \"Lote Dois\", \"login\": \"ricardo\", \"email\": \"lotedois@gmail.com\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" },"
+				+ "{ \"nome\": \"Lote Tres\", \"login\": \"lotetres\", \"email\": \"email-invalido\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" },"
+				+ "{ \"nome\": \"Lote Quatro\", \"login\": \"loteum\", \"email\": \"lotequatro@gmail.com\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" },"
+				+ "{ \"id\": 999999, \"nome\": \"Inexistente\" }"
+				+ "]";
+
+		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS + "/lote")
+				.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn();
+
+		JsonNode resultados = new ObjectMapper()
+				.readTree(resposta.getResponse().getContentAsString(StandardCharsets.UTF_8));
+
+		assertThat(resultados.size()).isEqualTo(5);
+		assertThat(resultados.get(0).get("sucesso").asBoolean()).isTrue();
+		assertThat(resultados.get(1).get("erro").asText()).isEqualTo(ExceptionsConstantes.LOGIN_JA_CADASTRADO);
+		assertThat(resultados.get(2).get("erro").asText()).isEqualTo(ValidacaoConstantes.EMAIL_INVALIDO);
+		assertThat(resultados.get(3).get("erro").asText()).isEqualTo(ExceptionsConstantes.LOGIN_JA_CADASTRADO);
+		assertThat(resultados.get(4).get("sucesso").asBoolean()).isFalse();
+
+		Usuario gravado = this.repository.findDistinctByLoginAndAtivo("loteum", true).get();
+		assertThat(gravado.getId()).isEqualTo(resultados.get(0).get("id").asLong());
+		assertThat(gravado.getEmail()).isEqualTo("loteum@gmail.com");
+		assertThat(this.repository.findDistinctByLoginAndAtivo("lotetres", true)).isEmpty();
+		assertThat(this.repository.countByEmailAndIdNot("lotequatro@gmail.com", 0l)).isZero();
+	}
+
+	@Test
+	@Order(8)
+	@DisplayName("Percorrendo os usuários ativos pelo cursor das páginas")
+	public void listarPorCursor() throws Exception {
+		Long qdtUsuariosAtivos = this.repository.countByAtivo(true);
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+
+		do {
+			MockHttpServletRequestBuilder requisicao = MockMvcRequestBuilders.get(UrlConstantes.USUARIOS)
+					.param("tamanho", "1").param("total", "true");
+			if (cursor != null)
+				requisicao.param("cursor", cursor);
+
+			MvcResult resposta = this.mockMvc.perform(requisicao).andExpect(MockMvcResultMatchers.status().isOk())
+					.andReturn();
+
+			UsuarioDTO[] usuarios = converterJsonEmListaUsuarioDTO(resposta.getResponse().getContentAsString());
+			assertThat(usuarios.length).isEqualTo(1);
+			assertThat(resposta.getResponse().getHeader(ControllerGenerico.CABECALHO_TOTAL_APROXIMADO))
+					.isEqualTo(String.valueOf(qdtUsuariosAtivos));
+
+			ids.add(usuarios[0].getId());
+			cursor = resposta.getResponse().getHeader(ControllerGenerico.CABECALHO_PROXIMO_CURSOR);
+		} while (cursor != null && ids.size() <= qdtUsuariosAtivos);
+
+		assertThat(ids).hasSize(qdtUsuariosAtivos.intValue()).isSorted().doesNotHaveDuplicates();
+	}
+
+	@Test
+	@Order(9)
+	@DisplayName("Consultando a disponibilidade do login e do email para o cadastro")
+	public void consultarDisponibilidade() throws Exception {
+		Statistics estatisticas = this.getEstatisticas();
+		JsonNode livres = this.consultarDisponibilidade("?login=novologin&email=novo@gmail.com");
+
+		// Nunca cadastrados: o índice responde sem consultar o banco
+		assertThat(livres.get("loginDisponivel").asBoolean()).isTrue();
+		assertThat(livres.get("emailDisponivel").asBoolean()).isTrue();
+		assertThat(estatisticas.getPrepareStatementCount()).isZero();
+
+		// O usuário excluído logicamente continua ocupando o login
+		estatisticas = this.getEstatisticas();
+		JsonNode usados = this.consultarDisponibilidade("?login=teste&email=novo@gmail.com");
+
+		assertThat(usados.get("loginDisponivel").asBoolean()).isFalse();
+		assertThat(usados.get("emailDisponivel").asBoolean()).isTrue();
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+
+		JsonNode apenasEmail = this.consultarDisponibilidade("?email=ricardo@gmail.com");
+		assertThat(apenasEmail.has("loginDisponivel")).isFalse();
+		assertThat(apenasEmail.get("emailDisponivel").asBoolean()).isFalse();
+	}
+
+	@Test
+	@Order(10)
+	@DisplayName("Atualizando parcialmente o usuário condicionado à versão")
+	public void atualizarParcial() throws Exception {
+		String json = "{ \"nome\": \"Parcial\", \"login\": \"parcial\", \"email\": \"parcial@gmail.com\","
+				+ " \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" }";
+		UsuarioDTO cadastrado = converterJsonEmUsuarioDTO(this.mockMvc
+				.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS).contentType(MediaType.APPLICATION_JSON)
+						.content(json))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsString());
+		assertThat(cadastrado.getVersao()).isZero();
+
+		Statistics estatisticas = this.getEstatisticas();
+		String alteracao = "{ \"nome\": \"Parcial Alterado\", \"versao\": " + cadastrado.getVersao() + " }";
+		UsuarioDTO alterado = converterJsonEmUsuarioDTO(this.mockMvc
+				.perform(MockMvcRequestBuilders.patch(UrlConstantes.USUARIOS + "/" + cadastrado.getId())
+						.contentType(MediaType.APPLICATION_JSON).content(alteracao))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsString());
+
+		assertThat(alterado.getNome()).isEqualTo("Parcial Alterado");
+		assertThat(alterado.getEmail()).isEqualTo("parcial@gmail.com");
+		assertThat(alterado.getVersao()).isEqualTo(cadastrado.getVersao() + 1);
+
+		// Uma leitura, o UPDATE condicionado à versão e os três comandos da auditoria
+		assertThat(estatisticas.getEntityLoadCount()).isEqualTo(1);
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(5);
+
+		// A versão lida antes da alteração já não vale
+		this.mockMvc
+				.perform(MockMvcRequestBuilders.patch(UrlConstantes.USUARIOS + "/" + cadastrado.getId())
+						.contentType(MediaType.APPLICATION_JSON).content(alteracao))
+				.andExpect(MockMvcResultMatchers.status().isConflict());
+
+		assertThat(this.repository.findById(cadastrado.getId()).get().getNome()).isEqualTo("Parcial Alterado");
+	}
+
+	@Test
+	@Order(11)
+	@DisplayName("Excluindo e restaurando usuários em massa pelos logins")
+	public void excluirERestaurarEmLote() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (String login : new String[] { "massaum", "massadois" }) {
+			String json = "{ \"nome\": \"Massa\", \"login\": \"" + login + "\", \"email\": \"" + login
+					+ "@gmail.com\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" }";
+			ids.add(converterJsonEmUsuarioDTO(this.mockMvc
+					.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS).contentType(MediaType.APPLICATION_JSON)
+							.content(json))
+					.andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsString())
+					.getId());
+		}
+
+		String filtro = "{ \"logins\": [\"massaum\", \"massadois\", \"inexistente\"] }";
+		JsonNode exclusao = this.alterarAtivoEmLote("/lote/excluir", filtro);
+		assertThat(exclusao.get("selecionados").asInt()).isEqualTo(2);
+		assertThat(exclusao.get("alterados").asInt()).isEqualTo(2);
+
+		for (Long id : ids) {
+			Usuario excluido = this.repository.findById(id).get();
+			assertThat(excluido.isAtivo()).isFalse();
+			assertThat(excluido.getDataExclusao()).isNotNull();
+			assertThat(excluido.getVersaoToken()).isEqualTo(1);
+		}
+
+		// Os já excluídos não são selecionados de novo
+		JsonNode repeticao = this.alterarAtivoEmLote("/lote/excluir", filtro);
+		assertThat(repeticao.get("selecionados").asInt()).isZero();
+
+		JsonNode restauracao = this.alterarAtivoEmLote("/lote/restaurar", filtro);
+		assertThat(restauracao.get("alterados").asInt()).isEqualTo(2);
+		assertThat(this.repository.findById(ids.get(0)).get().isAtivo()).isTrue();
+		assertThat(this.repository.findById(ids.get(0)).get().getDataExclusao()).isNull();
+
+		// A auditoria gravada por conjunto: cadastro, exclusão e restauração
+		EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+		try {
+			AuditReader auditoria = AuditReaderFactory.get(entityManager);
+			List<Number> revisoes = auditoria.getRevisions(Usuario.class, ids.get(0));
+			assertThat(revisoes).hasSize(3);
+			assertThat(auditoria.find(Usuario.class, ids.get(0), revisoes.get(1)).isAtivo()).isFalse();
+			assertThat(auditoria.find(Usuario.class, ids.get(0), revisoes.get(2)).isAtivo()).isTrue();
+		} finally {
+			entityManager.close();
+		}
+
+		// Sem nenhum critério a operação é recusada
+		this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS + "/lote/excluir")
+				.contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	@Order(12)
+	@DisplayName("Regravando o hash desatualizado após o login pela entidade")
+	public void regravarHashDesatualizado() throws Exception {
+		String json = "{ \"nome\": \"Hash\", \"login\": \"hashantigo\", \"email\": \"hashantigo@gmail.com\","
+				+ " \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" }";
+		Long id = converterJsonEmUsuarioDTO(this.mockMvc
+				.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS).contentType(MediaType.APPLICATION_JSON)
+						.content(json))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsString())
+				.getId();
+
+		// Hash gravado antes do prefixo {id} e com custo baixo
+		Usuario antigo = this.repository.findById(id).get();
+		antigo.setSenha(new BCryptPasswordEncoder(4).encode("123456"));
+		antigo = this.repository.save(antigo);
+		Long versaoAnterior = antigo.getVersao();
+
+		this.senhaService.atualizarHashSeNecessario(antigo, "123456");
+
+		Usuario atualizado = this.repository.findById(id).get();
+		for (int tentativa = 0; tentativa < 50 && atualizado.getVersao().equals(versaoAnterior); tentativa++) {
+			Thread.sleep(100);
+			atualizado = this.repository.findById(id).get();
+		}
+
+		assertThat(atualizado.getSenha()).startsWith("{bcrypt}");
+		assertThat(this.senhaService.isSenhaCorreta("123456", atualizado.getSenha())).isTrue();
+		assertThat(atualizado.getVersao()).isEqualTo(versaoAnterior + 1);
+		assertThat(atualizado.getDataAlteracao()).isNotNull();
+
+		// Cadastro, hash antigo e hash regravado
+		EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+		try {
+			assertThat(AuditReaderFactory.get(entityManager).getRevisions(Usuario.class, id)).hasSize(3);
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	@Test
+	@Order(13)
+	@DisplayName("Recusando o lote inteiro quando o banco rejeita um item")
+	public void recusarLoteComErroDoBanco() throws Exception {
+		// Restrição que só o banco conhece: o item passa pelas validações e é recusado no flush do bloco
+		this.jdbcTemplate.execute("alter table usuarios add constraint ck_teste_lote check (login <> 'bancodois')");
+		try {
+			String json = "["
+					+ "{ \"nome\": \"Banco Um\", \"login\": \"bancoum\", \"email\": \"bancoum@gmail.com\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" },"
+					+ "{ \"nome\": \"Banco Dois\", \"login\": \"bancodois\", \"email\": \"bancodois@gmail.com\", \"senha\": \"123456\", \"confirmacaoSenha\": \"123456\" }"
+					+ "]";
+
+			MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS + "/lote")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+					.andExpect(MockMvcResultMatchers.status().isBadRequest()).andReturn();
+
+			assertThat(resposta.getResolvedException().getMessage())
+					.isEqualTo(MessageFormat.format(ExceptionsConstantes.LOTE_NAO_GRAVADO, 0, 1));
+		} finally {
+			this.jdbcTemplate.execute("alter table usuarios drop constraint ck_teste_lote");
+		}
+
+		// Nem o item válido do mesmo bloco foi gravado
+		assertThat(this.repository.findDistinctByLoginAndAtivo("bancoum", true)).isEmpty();
+	}
+
+	private JsonNode alterarAtivoEmLote(String caminho, String json) throws Exception {
+		MvcResult resposta = this.mockMvc.perform(MockMvcRequestBuilders.post(UrlConstantes.USUARIOS + caminho)
+				.contentType(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn();
+		return new ObjectMapper().readTree(resposta.getResponse().getContentAsString(StandardCharsets.UTF_8));
+	}
+
+	private JsonNode consultarDisponibilidade(String parametros) throws Exception {
+		MvcResult resposta = this.mockMvc
+				.perform(MockMvcRequestBuilders.get(UrlConstantes.USUARIOS + "/disponibilidade" + parametros))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+		return new ObjectMapper().readTree(resposta.getResponse().getContentAsString(StandardCharsets.UTF_8));
+	}
+
+	private Statistics getEstatisticas() {
+		Statistics estatisticas = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+		return estatisticas;
+	}
+
 	public static UsuarioDTO converterJsonEmUsuarioDTO(String json) {
 		UsuarioDTO usuario = new UsuarioDTO();
 		ObjectMapper mapper = new ObjectMapper();
@@ -2,9 +2,16 @@ package br.com.api.repositories;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.lang.reflect.Method;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +23,7 @@ import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.test.context.ActiveProfiles;
 
 import br.com.api.models.Usuario;
@@ -30,6 +38,9 @@ public class UsuarioRepositoryTest {
 	@Autowired
 	private UsuarioRepository repository;
 
+	@Autowired
+	private EntityManager entityManager;
+
 	private Usuario usuario;
 
 	@BeforeAll
@@ -154,4 +165,41 @@ public class UsuarioRepositoryTest {
 		assertThat(usuario.getEmail()).isEqualTo("nando@gmail.com");;
 	}
 	
+	@Test
+	@Order(10)
+	@DisplayName("Conferindo as colunas gravadas pelas auditorias em lote com as tabelas do Envers")
+	public void conferirColunasAuditoriaLote() {
+		assertThat(this.getColunasInsert(UsuarioRepository.class, "auditarUsuarios"))
+				.containsExactlyInAnyOrderElementsOf(this.getColunasTabela("USUARIOS_AUD"));
+		assertThat(this.getColunasInsert(UsuarioRepository.class, "auditarInclusaoPerfis"))
+				.containsExactlyInAnyOrderElementsOf(this.getColunasTabela("USUARIO_PERFIL_AUD"));
+		assertThat(this.getColunasInsert(UsuarioRepository.class, "auditarRemocaoPerfis"))
+				.containsExactlyInAnyOrderElementsOf(this.getColunasTabela("USUARIO_PERFIL_AUD"));
+		assertThat(this.getColunasInsert(PerfilRepository.class, "auditarPerfis"))
+				.containsExactlyInAnyOrderElementsOf(this.getColunasTabela("PERFIS_AUD"));
+		assertThat(this.getColunasInsert(ChaveApiRepository.class, "auditarChaves"))
+				.containsExactlyInAnyOrderElementsOf(this.getColunasTabela("CHAVES_API_AUD"));
+	}
+
+	/**
+	 * Metodos Auxiliares
+	 */
+
+	private List<String> getColunasInsert(Class<?> repositorio, String metodo) {
+		Method consulta = Arrays.stream(repositorio.getMethods()).filter(m -> m.getName().equals(metodo)).findFirst().get();
+		String sql = consulta.getAnnotation(Query.class).value();
+		Matcher matcher = Pattern.compile("insert into \\w+ \\(([^)]+)\\)").matcher(sql);
+		assertThat(matcher.find()).isTrue();
+
+		return Arrays.stream(matcher.group(1).split(",")).map(String::trim).map(String::toUpperCase)
+				.collect(Collectors.toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> getColunasTabela(String tabela) {
+		return this.entityManager
+				.createNativeQuery("select column_name from information_schema.columns where table_name = :tabela")
+				.setParameter("tabela", tabela).getResultList();
+	}
+
 }
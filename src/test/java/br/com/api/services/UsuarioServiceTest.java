@@ -3,6 +3,7 @@ package br.com.api.services;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,7 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
 import br.com.api.dtos.UsuarioDTO;
@@ -44,6 +46,9 @@ public class UsuarioServiceTest {
 	@MockBean
 	private PerfilService perfilService;
 
+	@MockBean
+	private IndiceLoginEmail indiceLoginEmail;
+
 	@Test
 	@Order(1)
 	@DisplayName("Criando um usuário")
@@ -54,8 +59,9 @@ public class UsuarioServiceTest {
 		Mockito.when(this.repository.save(Mockito.any(Usuario.class))).thenReturn(usuario);
 		Mockito.when(this.perfilService.consultarOuCadastrarPerfilPeloNome(Mockito.any(Perfil.class)))
 				.thenReturn(new Perfil(1l, Perfil.PERFIL_USUARIO));
-		Mockito.when(this.repository.countByEmailAndIdNot(Mockito.anyString(), Mockito.anyLong())).thenReturn(0l);
-		Mockito.when(this.repository.countByLoginAndIdNot(Mockito.anyString(), Mockito.anyLong())).thenReturn(0l);
+		// O índice garante o login e o email livres, o banco nem é consultado
+		Mockito.when(this.indiceLoginEmail.isLoginTalvezUsado(Mockito.anyString())).thenReturn(false);
+		Mockito.when(this.indiceLoginEmail.isEmailTalvezUsado(Mockito.anyString())).thenReturn(false);
 
 		UsuarioDTO dto = new UsuarioDTO("Ricardo Lima", "ricardo", "ricardo@gmail.com", "123456", "123456");
 		dto = this.service.criarUsuario(dto);
@@ -70,7 +76,9 @@ public class UsuarioServiceTest {
 	@Order(2)
 	@DisplayName("Falha ao cadastrar usuário com email já existente")
 	public void erroAoCriarUsuarioT01() {
-		Mockito.when(this.repository.countByEmailAndIdNot(Mockito.anyString(), Mockito.anyLong())).thenReturn(1l);
+		Mockito.when(this.indiceLoginEmail.isEmailTalvezUsado(Mockito.anyString())).thenReturn(true);
+		Mockito.when(this.repository.findConflitosUnicidade(Mockito.any(), Mockito.anyString(), Mockito.anyLong()))
+				.thenReturn(Collections.singletonList(new Object[] { "outro", "ricardo@gmail.com" }));
 
 		try {
 			UsuarioDTO dto = new UsuarioDTO("Ricardo Lima", "ricardo", "ricardo@gmail.com", "123456", "123456");
@@ -85,7 +93,9 @@ public class UsuarioServiceTest {
 	@Order(3)
 	@DisplayName("Falha ao cadastrar usuário com login já existente")
 	public void erroAoCriarUsuarioT02() {
-		Mockito.when(this.repository.countByLoginAndIdNot(Mockito.anyString(), Mockito.anyLong())).thenReturn(1l);
+		Mockito.when(this.indiceLoginEmail.isLoginTalvezUsado(Mockito.anyString())).thenReturn(true);
+		Mockito.when(this.repository.findConflitosUnicidade(Mockito.anyString(), Mockito.any(), Mockito.anyLong()))
+				.thenReturn(Collections.singletonList(new Object[] { "ricardo", "outro@gmail.com" }));
 
 		try {
 			UsuarioDTO dto = new UsuarioDTO("Ricardo Lima", "ricardo", "ricardol@gmail.com", "123456", "123456");
@@ -152,11 +162,9 @@ public class UsuarioServiceTest {
 	@Order(8)
 	@DisplayName("Listando os usuários ativos")
 	public void listarTodosUsuariosAtivos() {
-		Usuario usuario1 = new Usuario(1l, "teste", "teste", "teste@gmail.com",
-				"$2a$10$A3BtshmFkCkcmWkDLfzA6OoS0xIEVPvc/rh2lbITuzoNqSFHjuizC");
-		Usuario usuario2 = new Usuario(2l, "Ricardo Lima", "ricardo", "ricardo@gmail.com",
-				"$2a$10$A3BtshmFkCkcmWkDLfzA6OoS0xIEVPvc/rh2lbITuzoNqSFHjuizC");
-		Mockito.when(this.repository.findByAtivo(true)).thenReturn(Arrays.asList(usuario1, usuario2));
+		UsuarioDTO usuario1 = new UsuarioDTO(1l, "teste", "teste", "teste@gmail.com", 0l);
+		UsuarioDTO usuario2 = new UsuarioDTO(2l, "Ricardo Lima", "ricardo", "ricardo@gmail.com", 0l);
+		Mockito.when(this.repository.findDTOByAtivo(true)).thenReturn(Arrays.asList(usuario1, usuario2));
 
 		List<UsuarioDTO> usuarios = this.service.consultarTodos();
 
@@ -168,9 +176,8 @@ public class UsuarioServiceTest {
 	@Order(9)
 	@DisplayName("Consultando usuário ativo por id")
 	public void consultarPorId() {
-		Usuario usuario = new Usuario(2l, "Ricardo Lima", "ricardo", "ricardo@gmail.com",
-				"$2a$10$A3BtshmFkCkcmWkDLfzA6OoS0xIEVPvc/rh2lbITuzoNqSFHjuizC");
-		Mockito.when(this.repository.findDistinctByIdAndAtivo(Mockito.anyLong(), Mockito.anyBoolean()))
+		UsuarioDTO usuario = new UsuarioDTO(2l, "Ricardo Lima", "ricardo", "ricardo@gmail.com", 0l);
+		Mockito.when(this.repository.findDTOByIdAndAtivo(Mockito.anyLong(), Mockito.anyBoolean()))
 				.thenReturn(Optional.of(usuario));
 
 		UsuarioDTO dto = this.service.consultar(2l);
@@ -185,8 +192,8 @@ public class UsuarioServiceTest {
 	@Order(10)
 	@DisplayName("Falha ao consultar usuário, id inválido ou usuário inativo ")
 	public void erroAoConsultarPorId() {
-		Mockito.when(this.repository.findDistinctByIdAndAtivo(Mockito.anyLong(), Mockito.anyBoolean()))
-				.thenReturn(Optional.of(new Usuario()));
+		Mockito.when(this.repository.findDTOByIdAndAtivo(Mockito.anyLong(), Mockito.anyBoolean()))
+				.thenReturn(Optional.empty());
 
 		try {
 			this.service.consultar(5l);
@@ -228,4 +235,27 @@ public class UsuarioServiceTest {
 		}
 	}
 
+	@Test
+	@Order(13)
+	@DisplayName("Falha ao cadastrar usuário com login gravado por outra instância")
+	public void erroAoCriarUsuarioComIndiceDesatualizado() {
+		Mockito.when(this.repository.save(Mockito.any(Usuario.class))).thenAnswer(invocacao -> invocacao.getArgument(0));
+		Mockito.when(this.perfilService.consultarOuCadastrarPerfilPeloNome(Mockito.any(Perfil.class)))
+				.thenReturn(new Perfil(1l, Perfil.PERFIL_USUARIO));
+		// O índice desta instância ainda não conhece o login, a restrição do banco recusa o INSERT
+		Mockito.when(this.indiceLoginEmail.isLoginTalvezUsado(Mockito.anyString())).thenReturn(false);
+		Mockito.when(this.indiceLoginEmail.isEmailTalvezUsado(Mockito.anyString())).thenReturn(false);
+		Mockito.doThrow(new DataIntegrityViolationException("usuarios_login_key")).when(this.repository).flush();
+		Mockito.when(this.repository.findConflitosUnicidade(Mockito.anyString(), Mockito.anyString(), Mockito.anyLong()))
+				.thenReturn(Collections.singletonList(new Object[] { "ricardo", "outro@gmail.com" }));
+
+		try {
+			UsuarioDTO dto = new UsuarioDTO("Ricardo Lima", "ricardo", "ricardo@gmail.com", "123456", "123456");
+			this.service.criarUsuario(dto);
+		} catch (Exception e) {
+			assertThat(CustomException.class).isEqualTo(e.getClass());
+			assertThat("Login informado já cadastrado").isEqualTo(e.getMessage());
+		}
+	}
+
 }